@@ -5,12 +5,26 @@ import com.invoice.auth.dto.LoginRequest;
 import com.invoice.auth.dto.RegisterRequest;
 import com.invoice.auth.entity.User;
 import com.invoice.auth.repository.UserRepository;
+import com.invoice.auth.service.RefreshTokenService.IssuedToken;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.datasource.ShardContext;
+import com.invoice.datasource.ShardDataSources;
+import com.invoice.ratelimit.LoginThrottle;
 import com.invoice.security.JwtUtil;
+import jakarta.annotation.PreDestroy;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 @Service
 public class AuthService {
 
@@ -18,18 +32,25 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
+    private final RefreshTokenService refreshTokenService;
+    private final ExecutorService delayedLogins =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("login-delayed-", 1).factory());
 
     public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-            JwtUtil jwtUtil, AuthenticationManager authenticationManager) {
+            JwtUtil jwtUtil, AuthenticationManager authenticationManager, LoginThrottle loginThrottle,
+            RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+            throw new ConflictException("Email already exists");
         }
 
         User user = new User();
@@ -40,22 +61,68 @@ public class AuthService {
 
         User savedUser = userRepository.save(user);
 
-        String token = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getId(), savedUser.getRole());
+        return authResponse(savedUser, onHomeShard(() -> refreshTokenService.issue(savedUser.getId())));
+    }
 
-        return new AuthResponse(token, savedUser.getId(), savedUser.getEmail(),
-                savedUser.getName(), savedUser.getRole());
+    /**
+     * Completes at once unless the account is being guessed at from many addresses; then the attempt is held back
+     * without holding a request thread, and checks the password on a virtual thread once the delay is over.
+     */
+    public CompletableFuture<AuthResponse> login(LoginRequest request, String clientAddress) {
+        long delayNanos = loginThrottle.check(clientAddress, request.getEmail());
+        if (delayNanos == 0) {
+            return CompletableFuture.completedFuture(authenticate(request, clientAddress));
+        }
+        return CompletableFuture.supplyAsync(() -> authenticate(request, clientAddress),
+                CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, delayedLogins));
     }
 
-    public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+    private AuthResponse authenticate(LoginRequest request, String clientAddress) {
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+            );
+        } catch (AuthenticationException e) {
+            loginThrottle.recordFailure(clientAddress, request.getEmail());
+            throw e;
+        }
 
         User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        return authResponse(user, onHomeShard(() -> refreshTokenService.issue(user.getId())));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and refresh token without checking the password.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        IssuedToken issued = onHomeShard(() -> refreshTokenService.rotate(refreshToken));
+
+        User user = userRepository.findById(issued.userId())
+                .orElseThrow(() -> new InvalidRefreshTokenException("User not found"));
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole());
+        return authResponse(user, issued);
+    }
+
+    public void logout(String refreshToken) {
+        ShardContext.runOn(ShardDataSources.HOME_SHARD, () -> refreshTokenService.revoke(refreshToken));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayedLogins.shutdownNow();
+    }
+
+    private AuthResponse authResponse(User user, IssuedToken refreshToken) {
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole(), refreshToken.familyId());
+
+        return new AuthResponse(token, refreshToken.token(), user.getId(), user.getEmail(), user.getName(),
+                user.getRole());
+    }
 
-        return new AuthResponse(token, user.getId(), user.getEmail(), user.getName(), user.getRole());
+    // Refresh tokens belong to users, which live on the home shard, even when the caller's JWT routed elsewhere
+    private static <T> T onHomeShard(Supplier<T> action) {
+        return ShardContext.callOn(ShardDataSources.HOME_SHARD, action);
     }
 }
@@ -0,0 +1,14 @@
+package com.invoice.auth.service;
+
+import com.invoice.common.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * The refresh token is unknown, expired, revoked or was already used; the client has to log in again. Reported as 401.
+ */
+public class InvalidRefreshTokenException extends ApiException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(HttpStatus.UNAUTHORIZED, message);
+    }
+}
@@ -0,0 +1,109 @@
+package com.invoice.auth.service;
+
+import com.invoice.auth.entity.RefreshToken;
+import com.invoice.auth.repository.RefreshTokenRepository;
+import com.invoice.security.TokenRevocationCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens. Tokens are 256 random bits, so a plain SHA-256 is enough to store them and checking
+ * one is a single unique-index lookup - no BCrypt involved. Each exchange uses up the presented token and issues its
+ * successor in the same family. A used token presented again means two parties hold the family, so the whole
+ * family is revoked and its access tokens stop working through {@link TokenRevocationCache}.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationCache revocationCache;
+    private final long refreshExpirationMs;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, TokenRevocationCache revocationCache,
+            @Value("${jwt.refresh-expiration:1209600000}") long refreshExpirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationCache = revocationCache;
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    public record IssuedToken(Long userId, String familyId, String token) {
+    }
+
+    @Transactional
+    public IssuedToken issue(Long userId) {
+        return save(userId, UUID.randomUUID().toString());
+    }
+
+    // A detected reuse must stay revoked even though the request itself fails
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public IssuedToken rotate(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getRevokedAt() != null || revocationCache.isRevoked(token.getFamilyId())) {
+            throw new InvalidRefreshTokenException("Refresh token has been revoked");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            revokeFamily(token.getFamilyId(), now);
+            log.warn("Refresh token reuse for user {}; revoked token family {}", token.getUserId(), token.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        return save(token.getUserId(), token.getFamilyId());
+    }
+
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private void revokeFamily(String familyId, LocalDateTime now) {
+        refreshTokenRepository.revokeFamily(familyId, now);
+        revocationCache.revoke(familyId);
+    }
+
+    private IssuedToken save(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setUserId(userId);
+        token.setExpiresAt(LocalDateTime.now().plusNanos(refreshExpirationMs * 1_000_000));
+        refreshTokenRepository.save(token);
+        return new IssuedToken(userId, familyId, rawToken);
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.invoice.business.controller;
+
+import com.invoice.business.service.AssetStorageService;
+import com.invoice.business.service.AssetVariantService;
+import com.invoice.business.service.BusinessAssetService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Public, cacheable download of stored asset bytes by content hash, so invoice templates can reference logos and
+ * signatures with a plain image URL.
+ */
+@RestController
+@RequestMapping("/api/assets")
+public class AssetContentController {
+
+    private final AssetStorageService storageService;
+    private final BusinessAssetService assetService;
+    private final AssetVariantService variantService;
+
+    public AssetContentController(AssetStorageService storageService, BusinessAssetService assetService,
+            AssetVariantService variantService) {
+        this.storageService = storageService;
+        this.assetService = assetService;
+        this.variantService = variantService;
+    }
+
+    @GetMapping("/{hash}")
+    public void getContent(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<String> contentType = storageService.isValidHash(hash) ? assetService.getContentType(hash) : Optional.empty();
+        if (contentType.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        storageService.serve(storageService.resolve(hash), hash, contentType.get(), request, response);
+    }
+
+    @GetMapping("/{hash}/variants/{variant}")
+    public void getVariant(@PathVariable String hash, @PathVariable String variant, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!storageService.isValidHash(hash) || assetService.getContentType(hash).isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        AssetVariantService.Variant parsed = AssetVariantService.parseVariant(variant);
+        String etag = hash + "-" + parsed.name().toLowerCase();
+        storageService.serve(variantService.getVariant(hash, parsed), etag, "image/png", request, response);
+    }
+}
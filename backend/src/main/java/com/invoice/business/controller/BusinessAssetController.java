@@ -0,0 +1,38 @@
+package com.invoice.business.controller;
+
+import com.invoice.business.dto.BusinessAssetResponse;
+import com.invoice.business.service.BusinessAssetService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/business/assets")
+public class BusinessAssetController {
+
+    private final BusinessAssetService assetService;
+
+    public BusinessAssetController(BusinessAssetService assetService) {
+        this.assetService = assetService;
+    }
+
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<BusinessAssetResponse> uploadAsset(@RequestParam String type,
+            @RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(assetService.uploadAsset(type, file));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BusinessAssetResponse>> getAssets() {
+        return ResponseEntity.ok(assetService.getAssets());
+    }
+
+    @DeleteMapping("/{type}")
+    public ResponseEntity<Void> deleteAsset(@PathVariable String type) {
+        assetService.deleteAsset(type);
+        return ResponseEntity.noContent().build();
+    }
+}
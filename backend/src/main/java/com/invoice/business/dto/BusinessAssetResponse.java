@@ -0,0 +1,23 @@
+package com.invoice.business.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessAssetResponse {
+
+    private Long id;
+    private Long businessId;
+    private String type;
+    private String fileUrl;
+    private String fileName;
+    private String contentHash;
+    private String contentType;
+    private Long sizeBytes;
+    private LocalDateTime createdAt;
+}
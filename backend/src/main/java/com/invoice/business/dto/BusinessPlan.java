@@ -0,0 +1,4 @@
+package com.invoice.business.dto;
+
+public record BusinessPlan(Long businessId, String plan) {
+}
@@ -22,4 +22,7 @@ public class BusinessRequest {
     private String phone;
 
     private String gstNumber;
+
+    @Pattern(regexp = "^$|^[a-zA-Z0-9._-]{2,256}@[a-zA-Z]{2,64}$", message = "UPI ID must look like name@bank")
+    private String upiId;
 }
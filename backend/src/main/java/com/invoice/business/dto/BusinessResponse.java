@@ -14,4 +14,5 @@ public class BusinessResponse {
     private String stateCode;
     private String phone;
     private String gstNumber;
+    private String upiId;
 }
@@ -37,6 +37,13 @@ public class Business {
     @Column(name = "gst_number")
     private String gstNumber;
 
+    @Column(name = "upi_id")
+    private String upiId;
+
+    // Rate-limit plan; null means rate-limit.default-plan
+    @Column(length = 32)
+    private String plan;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -9,7 +9,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "business_assets")
+@Table(name = "business_assets",
+        indexes = @Index(name = "idx_business_assets_content_hash", columnList = "content_hash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,6 +33,16 @@ public class BusinessAsset {
     @Column(name = "file_name")
     private String fileName;
 
+    // SHA-256 of the stored bytes; also the file's address in the local asset store
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
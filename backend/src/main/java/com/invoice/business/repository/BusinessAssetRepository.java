@@ -14,5 +14,5 @@ public interface BusinessAssetRepository extends JpaRepository<BusinessAsset, Lo
 
     List<BusinessAsset> findByBusinessIdAndType(Long businessId, BusinessAsset.AssetType type);
 
-    Optional<BusinessAsset> findFirstByBusinessIdAndType(Long businessId, BusinessAsset.AssetType type);
+    Optional<BusinessAsset> findFirstByContentHash(String contentHash);
 }
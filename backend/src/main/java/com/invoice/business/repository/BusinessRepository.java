@@ -1,7 +1,10 @@
 package com.invoice.business.repository;
 
+import com.invoice.business.dto.BusinessPlan;
 import com.invoice.business.entity.Business;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +15,8 @@ public interface BusinessRepository extends JpaRepository<Business, Long> {
     Optional<Business> findByUserId(Long userId);
 
     boolean existsByUserId(Long userId);
+
+    @Query("select new com.invoice.business.dto.BusinessPlan(b.id, b.plan) from Business b, User u "
+            + "where u.id = b.userId and u.email = :email")
+    Optional<BusinessPlan> findPlanByUserEmail(@Param("email") String email);
 }
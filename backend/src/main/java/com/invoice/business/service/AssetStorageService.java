@@ -0,0 +1,204 @@
+package com.invoice.business.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed file store for business assets. Files are named by the SHA-256 of their bytes, so identical
+ * uploads share one file and a stored file never changes, which lets downloads be cached forever by hash.
+ */
+@Service
+public class AssetStorageService {
+
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+    private static final Pattern BYTE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+
+    // Tomcat's sendfile contract: when the connector supports it, the servlet names the file and byte range and
+    // Tomcat writes it after the request returns
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+    private final Path tmp;
+    private final Path variants;
+
+    public AssetStorageService(@Value("${assets.storage-dir:./data/assets}") String storageDir) {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.tmp = root.resolve("tmp");
+        this.variants = root.resolve("variants");
+        try {
+            Files.createDirectories(tmp);
+            Files.createDirectories(variants);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Asset storage directory could not be created: " + root, e);
+        }
+    }
+
+    public record StoredContent(String hash, long size) {
+    }
+
+    // Streams the upload to a temp file while hashing it, then moves it into place under its hash
+    public StoredContent store(InputStream content) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path temp = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredContent(hash, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean isValidHash(String hash) {
+        return hash != null && HASH.matcher(hash).matches();
+    }
+
+    public Path resolve(String hash) {
+        if (!isValidHash(hash)) {
+            throw new IllegalArgumentException("Invalid content hash");
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    public Path getVariantsDirectory() {
+        return variants;
+    }
+
+    public Path resolveVariant(String hash, String variant) {
+        if (!isValidHash(hash)) {
+            throw new IllegalArgumentException("Invalid content hash");
+        }
+        return variants.resolve(hash + "-" + variant + ".png");
+    }
+
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(tmp, "variant-", ".part");
+    }
+
+    /**
+     * Writes a stored file to the response with a strong ETag, long-lived cache headers and single-range support.
+     * On Tomcat connectors with sendfile the body is handed to the connector, which sends it from the page cache
+     * without copying it through the JVM; otherwise it is copied through the servlet output stream.
+     */
+    public void serve(Path file, String etagValue, String contentType, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + etagValue + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            long end = size - 1;
+
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                var matcher = BYTE_RANGE.matcher(range.trim());
+                if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    rejectRange(response, size);
+                    return;
+                }
+                try {
+                    if (matcher.group(1).isEmpty()) {
+                        // Suffix range: the last N bytes
+                        start = Math.max(0, size - Long.parseLong(matcher.group(2)));
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(end, Long.parseLong(matcher.group(2)));
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    // Positions past Long.MAX_VALUE cannot be inside any stored file
+                    rejectRange(response, size);
+                    return;
+                }
+                if (start >= size || start > end) {
+                    rejectRange(response, size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+
+            long length = size == 0 ? 0 : end - start + 1;
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            if (length > 0 && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1); // Exclusive
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private void rejectRange(HttpServletResponse response, long size) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+    }
+}
@@ -0,0 +1,326 @@
+package com.invoice.business.service;
+
+import com.invoice.common.exception.ValidationException;
+import com.invoice.workload.WorkloadRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Produces resized and grayscale PNG variants of stored images. Variants are written next to the asset store and
+ * kept as an LRU cache bounded by total bytes; a variant that was evicted is simply produced again on next request.
+ * Concurrent requests for the same variant share a single rendering.
+ *
+ * <p>Tomcat opens a file served by sendfile only after the request has returned its path, so an evicted variant is
+ * not deleted right away: its file is removed by a later cache miss once it has been out of the cache for a grace
+ * period.
+ *
+ * <p>Variants are reachable without authentication, so image headers are read before decoding and anything above
+ * {@code assets.variant-max-pixels} is refused, and rendering runs on a small bounded pool that answers 503 when
+ * full rather than on request threads.
+ */
+@Slf4j
+@Service
+public class AssetVariantService {
+
+    private static final long EVICTED_FILE_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public enum Variant {
+        THUMBNAIL(128, 128, false),
+        PRINT(600, 0, false), // ~2 inches wide at 300 DPI
+        GRAYSCALE(0, 0, true);
+
+        // 0 leaves the dimension unbounded
+        private final int maxWidth;
+        private final int maxHeight;
+        private final boolean grayscale;
+
+        Variant(int maxWidth, int maxHeight, boolean grayscale) {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.grayscale = grayscale;
+        }
+    }
+
+    private final AssetStorageService storageService;
+    private final long maxCacheBytes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor renderers;
+    private final Counter rejections;
+
+    private final Map<String, CompletableFuture<Path>> rendering = new ConcurrentHashMap<>();
+    // Access-ordered, so iteration starts at the least recently used variant
+    private final LinkedHashMap<Path, Long> cachedVariants = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    // Evicted variant files still on disk, in eviction order, with the time they were evicted
+    private final LinkedHashMap<Path, Long> evictedVariants = new LinkedHashMap<>();
+
+    public AssetVariantService(AssetStorageService storageService, MeterRegistry meterRegistry,
+            @Value("${assets.variant-cache-max-bytes:268435456}") long maxCacheBytes,
+            @Value("${assets.variant-max-pixels:25000000}") long maxPixels,
+            @Value("${assets.variant-render-threads:2}") int renderThreads,
+            @Value("${assets.variant-render-queue:32}") int renderQueue) {
+        this.storageService = storageService;
+        this.maxCacheBytes = maxCacheBytes;
+        this.maxPixels = maxPixels;
+        this.renderers = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(renderQueue), Thread.ofPlatform().name("variant-render-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(renderers, "variant-render", Tags.empty()).bindTo(meterRegistry);
+        this.rejections = Counter.builder("workload.rejected").tag("class", "variant-render")
+                .description("Variant renderings refused because the render pool was full")
+                .register(meterRegistry);
+        loadExistingVariants();
+    }
+
+    public static Variant parseVariant(String name) {
+        try {
+            return Variant.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown variant: " + name);
+        }
+    }
+
+    public Path getVariant(String hash, Variant variant) {
+        return await(renderAsync(hash, variant));
+    }
+
+    // Warms every variant after an upload so the first render doesn't pay for it
+    public void renderInBackground(String hash) {
+        for (Variant variant : Variant.values()) {
+            try {
+                renderAsync(hash, variant).whenComplete((path, error) -> {
+                    if (error != null) {
+                        log.debug("Background rendering of {} {} failed", hash, variant, error);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.debug("Background rendering of {} {} was not started", hash, variant, e);
+            }
+        }
+    }
+
+    private CompletableFuture<Path> renderAsync(String hash, Variant variant) {
+        Path target = storageService.resolveVariant(hash, variant.name().toLowerCase());
+        if (touch(target) && Files.exists(target)) {
+            return CompletableFuture.completedFuture(target);
+        }
+        deleteEvicted();
+
+        String key = target.toString();
+        CompletableFuture<Path> pending = new CompletableFuture<>();
+        CompletableFuture<Path> existing = rendering.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            renderers.execute(() -> {
+                try {
+                    pending.complete(render(hash, variant, target));
+                } catch (RuntimeException | Error e) {
+                    pending.completeExceptionally(e);
+                } finally {
+                    rendering.remove(key, pending);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            rendering.remove(key, pending);
+            WorkloadRejectedException rejected =
+                    new WorkloadRejectedException("Image rendering is busy. Please try again shortly.");
+            pending.completeExceptionally(rejected);
+            throw rejected;
+        }
+        return pending;
+    }
+
+    private Path render(String hash, Variant variant, Path target) {
+        try {
+            BufferedImage source = decode(storageService.resolve(hash), variant);
+
+            double scale = 1;
+            if (variant.maxWidth > 0) {
+                scale = Math.min(scale, variant.maxWidth / (double) source.getWidth());
+            }
+            if (variant.maxHeight > 0) {
+                scale = Math.min(scale, variant.maxHeight / (double) source.getHeight());
+            }
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            BufferedImage scaled = downscale(source, width, height);
+
+            BufferedImage output = scaled;
+            if (variant.grayscale) {
+                output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                Graphics2D g = output.createGraphics();
+                g.setColor(Color.WHITE); // Transparent areas print as paper, not black
+                g.fillRect(0, 0, width, height);
+                g.drawImage(scaled, 0, 0, null);
+                g.dispose();
+            }
+
+            Path temp = storageService.createTempFile();
+            try {
+                ImageIO.write(output, "png", temp.toFile());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            remember(target, Files.size(target));
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Variant could not be rendered", e);
+        }
+    }
+
+    // Checks the dimensions from the header before any pixels are decoded, then decodes only every n-th pixel
+    // when the variant is far smaller than the source
+    private BufferedImage decode(Path file, Variant variant) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new ValidationException("Image format not supported for variants");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxPixels) {
+                    throw new ValidationException("Image is too large for variants");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(
+                        variant.maxWidth > 0 ? width / (variant.maxWidth * 2) : 1,
+                        variant.maxHeight > 0 ? height / (variant.maxHeight * 2) : Integer.MAX_VALUE));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves the image until close to the target before the final resize, which keeps large logos sharp
+    private BufferedImage downscale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    private synchronized boolean touch(Path variant) {
+        return cachedVariants.get(variant) != null;
+    }
+
+    private synchronized void remember(Path variant, long size) {
+        evictedVariants.remove(variant);
+        Long previous = cachedVariants.put(variant, size);
+        cachedBytes += size - (previous != null ? previous : 0);
+
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> eldest = cachedVariants.entrySet().iterator();
+        while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            if (entry.getKey().equals(variant)) {
+                continue;
+            }
+            cachedBytes -= entry.getValue();
+            evictedVariants.put(entry.getKey(), now);
+            eldest.remove();
+        }
+    }
+
+    // A variant being rendered again is left alone; remember() takes it back into the cache when it is done
+    private synchronized void deleteEvicted() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> eldest = evictedVariants.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            if (now - entry.getValue() < EVICTED_FILE_GRACE_NANOS) {
+                return;
+            }
+            if (rendering.containsKey(entry.getKey().toString())) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(entry.getKey());
+                eldest.remove();
+            } catch (IOException e) {
+                log.warn("Could not delete evicted variant {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void loadExistingVariants() {
+        try (Stream<Path> files = Files.list(storageService.getVariantsDirectory())) {
+            List<Path> existing = files
+                    .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                    .toList();
+            for (Path path : existing) {
+                remember(path, Files.size(path));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Variant cache could not be loaded", e);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderers.shutdown();
+    }
+}
@@ -0,0 +1,164 @@
+package com.invoice.business.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.dto.BusinessAssetResponse;
+import com.invoice.business.entity.Business;
+import com.invoice.business.entity.BusinessAsset;
+import com.invoice.business.repository.BusinessAssetRepository;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.AfterCommit;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+public class BusinessAssetService {
+
+    private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+
+    private final BusinessAssetRepository assetRepository;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final AssetStorageService storageService;
+    private final AssetVariantService variantService;
+
+    private final long contentTypeCacheMs;
+
+    // Content types of public downloads by hash. Entries expire, so a delete on another node stops the download
+    // here within contentTypeCacheMs; a delete on this node evicts at once
+    private final Map<String, CachedContentType> contentTypesByHash = new ConcurrentHashMap<>();
+
+    private record CachedContentType(String contentType, long expiresAt) {
+    }
+
+    public BusinessAssetService(BusinessAssetRepository assetRepository, BusinessRepository businessRepository,
+            UserRepository userRepository, AssetStorageService storageService, AssetVariantService variantService,
+            @Value("${assets.content-type-cache-ms:60000}") long contentTypeCacheMs) {
+        this.assetRepository = assetRepository;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.storageService = storageService;
+        this.variantService = variantService;
+        this.contentTypeCacheMs = contentTypeCacheMs;
+    }
+
+    @Transactional
+    public BusinessAssetResponse uploadAsset(String type, MultipartFile file) {
+        Long businessId = getBusinessIdForCurrentUser();
+        BusinessAsset.AssetType assetType = parseType(type);
+
+        if (file.isEmpty()) {
+            throw new ValidationException("File is empty");
+        }
+        if (file.getContentType() == null || !ALLOWED_CONTENT_TYPES.contains(file.getContentType())) {
+            throw new ValidationException("Only PNG, JPEG, GIF and WebP images are supported");
+        }
+
+        AssetStorageService.StoredContent stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = storageService.store(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Asset could not be stored", e);
+        }
+
+        // One asset per type - an upload replaces the previous one
+        List<BusinessAsset> replaced = assetRepository.findByBusinessIdAndType(businessId, assetType);
+        assetRepository.deleteAll(replaced);
+
+        BusinessAsset asset = new BusinessAsset();
+        asset.setBusinessId(businessId);
+        asset.setType(assetType);
+        asset.setFileUrl("/api/assets/" + stored.hash());
+        asset.setFileName(file.getOriginalFilename());
+        asset.setContentHash(stored.hash());
+        asset.setContentType(file.getContentType());
+        asset.setSizeBytes(stored.size());
+
+        BusinessAsset saved = assetRepository.save(asset);
+        // The replaced asset's content may no longer be referenced; the next download looks it up again
+        List<String> replacedHashes = replaced.stream().map(BusinessAsset::getContentHash).toList();
+        AfterCommit.run(() -> replacedHashes.forEach(contentTypesByHash::remove));
+        if (assetType == BusinessAsset.AssetType.LOGO || assetType == BusinessAsset.AssetType.SIGNATURE) {
+            variantService.renderInBackground(stored.hash());
+        }
+        return mapToResponse(saved);
+    }
+
+    public List<BusinessAssetResponse> getAssets() {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        return assetRepository.findByBusinessId(businessId)
+                .stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void deleteAsset(String type) {
+        Long businessId = getBusinessIdForCurrentUser();
+        BusinessAsset.AssetType assetType = parseType(type);
+
+        // Stored files are left in place - other assets may share the same content
+        List<BusinessAsset> deleted = assetRepository.findByBusinessIdAndType(businessId, assetType);
+        assetRepository.deleteAll(deleted);
+        // Evicted rather than removed outright: if another asset shares the content, the next lookup finds it
+        List<String> deletedHashes = deleted.stream().map(BusinessAsset::getContentHash).toList();
+        AfterCommit.run(() -> deletedHashes.forEach(contentTypesByHash::remove));
+    }
+
+    public Optional<String> getContentType(String hash) {
+        long now = System.currentTimeMillis();
+        CachedContentType cached = contentTypesByHash.get(hash);
+        if (cached != null && cached.expiresAt() > now) {
+            return Optional.of(cached.contentType());
+        }
+        Optional<String> contentType = assetRepository.findFirstByContentHash(hash).map(BusinessAsset::getContentType);
+        if (contentType.isPresent()) {
+            contentTypesByHash.put(hash, new CachedContentType(contentType.get(), now + contentTypeCacheMs));
+        } else {
+            contentTypesByHash.remove(hash);
+        }
+        return contentType;
+    }
+
+    private BusinessAsset.AssetType parseType(String type) {
+        try {
+            return BusinessAsset.AssetType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown asset type: " + type);
+        }
+    }
+
+    private BusinessAssetResponse mapToResponse(BusinessAsset asset) {
+        return new BusinessAssetResponse(asset.getId(), asset.getBusinessId(), asset.getType().name(),
+                asset.getFileUrl(), asset.getFileName(), asset.getContentHash(), asset.getContentType(),
+                asset.getSizeBytes(), asset.getCreatedAt());
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
@@ -6,6 +6,8 @@ import com.invoice.business.dto.BusinessRequest;
 import com.invoice.business.dto.BusinessResponse;
 import com.invoice.business.entity.Business;
 import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.NotFoundException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -23,10 +25,10 @@ public class BusinessService {
     public BusinessResponse createBusiness(BusinessRequest request) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
         if (businessRepository.existsByUserId(user.getId())) {
-            throw new RuntimeException("Business already exists for this user");
+            throw new ConflictException("Business already exists for this user");
         }
 
         Business business = new Business();
@@ -36,48 +38,50 @@ public class BusinessService {
         business.setStateCode(request.getStateCode());
         business.setPhone(request.getPhone());
         business.setGstNumber(request.getGstNumber());
+        business.setUpiId(request.getUpiId() == null || request.getUpiId().isBlank() ? null : request.getUpiId());
 
         Business savedBusiness = businessRepository.save(business);
 
         return new BusinessResponse(savedBusiness.getId(), savedBusiness.getUserId(),
                 savedBusiness.getBusinessName(), savedBusiness.getAddress(),
                 savedBusiness.getStateCode(), savedBusiness.getPhone(),
-                savedBusiness.getGstNumber());
+                savedBusiness.getGstNumber(), savedBusiness.getUpiId());
     }
 
     public BusinessResponse getBusiness() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
         Business business = businessRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Business not found"));
+                .orElseThrow(() -> new NotFoundException("Business not found"));
 
         return new BusinessResponse(business.getId(), business.getUserId(),
                 business.getBusinessName(), business.getAddress(),
                 business.getStateCode(), business.getPhone(),
-                business.getGstNumber());
+                business.getGstNumber(), business.getUpiId());
     }
 
     public BusinessResponse updateBusiness(BusinessRequest request) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
         Business business = businessRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Business not found"));
+                .orElseThrow(() -> new NotFoundException("Business not found"));
 
         business.setBusinessName(request.getBusinessName());
         business.setAddress(request.getAddress());
         business.setStateCode(request.getStateCode());
         business.setPhone(request.getPhone());
         business.setGstNumber(request.getGstNumber());
+        business.setUpiId(request.getUpiId() == null || request.getUpiId().isBlank() ? null : request.getUpiId());
 
         Business updatedBusiness = businessRepository.save(business);
 
         return new BusinessResponse(updatedBusiness.getId(), updatedBusiness.getUserId(),
                 updatedBusiness.getBusinessName(), updatedBusiness.getAddress(),
                 updatedBusiness.getStateCode(), updatedBusiness.getPhone(),
-                updatedBusiness.getGstNumber());
+                updatedBusiness.getGstNumber(), updatedBusiness.getUpiId());
     }
 }
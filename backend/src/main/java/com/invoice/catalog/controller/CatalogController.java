@@ -0,0 +1,55 @@
+package com.invoice.catalog.controller;
+
+import com.invoice.catalog.dto.CatalogItemRequest;
+import com.invoice.catalog.dto.CatalogItemResponse;
+import com.invoice.catalog.dto.HsnRateResponse;
+import com.invoice.catalog.service.CatalogService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @GetMapping("/items")
+    public ResponseEntity<List<CatalogItemResponse>> getItems() {
+        return ResponseEntity.ok(catalogService.getItems());
+    }
+
+    @GetMapping("/items/autocomplete")
+    public ResponseEntity<List<CatalogItemResponse>> autocomplete(@RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(catalogService.autocomplete(query, limit));
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<CatalogItemResponse> createItem(@Valid @RequestBody CatalogItemRequest request) {
+        return ResponseEntity.ok(catalogService.createItem(request));
+    }
+
+    @DeleteMapping("/items/{id}")
+    public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
+        catalogService.deleteItem(id);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/learn")
+    public ResponseEntity<Map<String, Integer>> learnFromInvoices() {
+        return ResponseEntity.ok(catalogService.learnFromInvoices());
+    }
+
+    @GetMapping("/hsn/{code}")
+    public ResponseEntity<HsnRateResponse> lookupHsnRate(@PathVariable String code) {
+        return ResponseEntity.ok(catalogService.lookupHsnRate(code));
+    }
+}
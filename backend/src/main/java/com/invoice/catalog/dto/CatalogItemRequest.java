@@ -0,0 +1,27 @@
+package com.invoice.catalog.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class CatalogItemRequest {
+
+    @NotBlank(message = "Item name is required")
+    private String name;
+
+    private String description;
+
+    @Pattern(regexp = "^[0-9]{2,8}$", message = "HSN/SAC code must be 2 to 8 digits")
+    private String hsnCode;
+
+    @DecimalMin(value = "0.00", message = "Price must be 0 or greater")
+    private BigDecimal price;
+
+    // Optional when the HSN/SAC code has a bundled rate
+    @DecimalMin(value = "0.00", message = "GST rate must be 0 or greater")
+    private BigDecimal gstRate;
+}
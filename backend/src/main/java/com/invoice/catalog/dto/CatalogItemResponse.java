@@ -0,0 +1,21 @@
+package com.invoice.catalog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogItemResponse {
+
+    private Long id;
+    private String name;
+    private String description;
+    private String hsnCode;
+    private BigDecimal price;
+    private BigDecimal gstRate;
+    private Long usageCount;
+}
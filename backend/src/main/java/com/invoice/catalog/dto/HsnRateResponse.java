@@ -0,0 +1,18 @@
+package com.invoice.catalog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HsnRateResponse {
+
+    private String code;
+    private String matchedCode;
+    private String description;
+    private BigDecimal gstRate;
+}
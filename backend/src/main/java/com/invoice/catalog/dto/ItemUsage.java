@@ -0,0 +1,4 @@
+package com.invoice.catalog.dto;
+
+public record ItemUsage(Long latestItemId, Long count) {
+}
@@ -0,0 +1,52 @@
+package com.invoice.catalog.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "catalog_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_catalog_items_business_name", columnNames = {"business_id", "name_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    @Column(nullable = false)
+    private String name;
+
+    // Lower-cased, whitespace-collapsed name; one catalog entry per distinct name
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "hsn_code", length = 8)
+    private String hsnCode;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "gst_rate", nullable = false, precision = 5, scale = 2)
+    private BigDecimal gstRate;
+
+    @Column(name = "usage_count", nullable = false)
+    private Long usageCount = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package com.invoice.catalog.repository;
+
+import com.invoice.catalog.entity.CatalogItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogItemRepository extends JpaRepository<CatalogItem, Long> {
+
+    List<CatalogItem> findByBusinessId(Long businessId);
+
+    boolean existsByBusinessIdAndNameKey(Long businessId, String nameKey);
+}
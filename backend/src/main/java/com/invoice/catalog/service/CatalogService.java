@@ -0,0 +1,372 @@
+package com.invoice.catalog.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.catalog.dto.CatalogItemRequest;
+import com.invoice.catalog.dto.CatalogItemResponse;
+import com.invoice.catalog.dto.HsnRateResponse;
+import com.invoice.catalog.dto.ItemUsage;
+import com.invoice.catalog.entity.CatalogItem;
+import com.invoice.catalog.repository.CatalogItemRepository;
+import com.invoice.common.AfterCommit;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.invoice.dto.InvoiceItemRequest;
+import com.invoice.invoice.entity.InvoiceItem;
+import com.invoice.invoice.repository.InvoiceItemRepository;
+import com.invoice.workload.ReportingWorkload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-business item catalog. Each business's items are kept in memory by id and in a sorted prefix index over every
+ * word of the name, for listing and autocomplete. Changes made on this node patch the cached catalog; changes made
+ * on other nodes show up once it is older than {@code catalog.cache-ttl-ms} and is reloaded. Invoice lines never
+ * rely on the cache: their catalog items are read from the database.
+ */
+@Service
+public class CatalogService {
+
+    private static final int LEARN_BATCH_SIZE = 1000;
+    private static final int MAX_AUTOCOMPLETE = 50;
+    // Ties go to the name that sorts first
+    private static final Comparator<CatalogItemResponse> LEAST_USED_FIRST =
+            Comparator.comparing(CatalogItemResponse::getUsageCount)
+                    .thenComparing(CatalogItemResponse::getName, String.CASE_INSENSITIVE_ORDER.reversed());
+
+    private final CatalogItemRepository catalogItemRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final HsnRateTable hsnRateTable;
+    private final ReportingWorkload reportingWorkload;
+    private final TransactionTemplate transactionTemplate;
+    private final long cacheTtlMs;
+
+    private final Map<Long, BusinessCatalog> catalogs = new ConcurrentHashMap<>();
+
+    public CatalogService(CatalogItemRepository catalogItemRepository, InvoiceItemRepository invoiceItemRepository,
+            BusinessRepository businessRepository, UserRepository userRepository, HsnRateTable hsnRateTable,
+            ReportingWorkload reportingWorkload, TransactionTemplate transactionTemplate,
+            @Value("${catalog.cache-ttl-ms:60000}") long cacheTtlMs) {
+        this.catalogItemRepository = catalogItemRepository;
+        this.invoiceItemRepository = invoiceItemRepository;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.hsnRateTable = hsnRateTable;
+        this.reportingWorkload = reportingWorkload;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    public List<CatalogItemResponse> getItems() {
+        return catalog(getBusinessIdForCurrentUser()).byId.values().stream()
+                .sorted(Comparator.comparing(CatalogItemResponse::getName, String.CASE_INSENSITIVE_ORDER))
+                .collect(Collectors.toList());
+    }
+
+    public List<CatalogItemResponse> autocomplete(String query, int limit) {
+        String prefix = nameKey(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int wanted = Math.min(Math.max(limit, 1), MAX_AUTOCOMPLETE);
+
+        // Ranks every match, not just the alphabetically first ones: a min-heap of the `wanted` most used items so
+        // far, whose head is the one to drop next. Items match once per word, hence the id set
+        Set<Long> seen = new HashSet<>();
+        PriorityQueue<CatalogItemResponse> top = new PriorityQueue<>(wanted + 1, LEAST_USED_FIRST);
+        for (Map.Entry<String, CatalogItemResponse> entry : catalog(getBusinessIdForCurrentUser()).prefixIndex
+                .tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (seen.add(entry.getValue().getId())) {
+                top.add(entry.getValue());
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+        }
+        return top.stream()
+                .sorted(LEAST_USED_FIRST.reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public CatalogItemResponse createItem(CatalogItemRequest request) {
+        Long businessId = getBusinessIdForCurrentUser();
+        String nameKey = nameKey(request.getName());
+        if (catalogItemRepository.existsByBusinessIdAndNameKey(businessId, nameKey)) {
+            throw new ConflictException("Catalog item already exists: " + request.getName());
+        }
+
+        BigDecimal gstRate = request.getGstRate() != null ? request.getGstRate()
+                : hsnRateTable.rateFor(request.getHsnCode())
+                        .orElseThrow(() -> new ValidationException("GST rate is required for this item"));
+
+        CatalogItem item = new CatalogItem();
+        item.setBusinessId(businessId);
+        item.setName(request.getName().trim());
+        item.setNameKey(nameKey);
+        item.setDescription(request.getDescription());
+        item.setHsnCode(request.getHsnCode());
+        item.setPrice(request.getPrice());
+        item.setGstRate(gstRate);
+
+        CatalogItemResponse response = mapToResponse(catalogItemRepository.save(item));
+        AfterCommit.run(() -> catalogs.computeIfPresent(businessId, (id, catalog) -> catalog.put(response)));
+        return response;
+    }
+
+    @Transactional
+    public void deleteItem(Long id) {
+        Long businessId = getBusinessIdForCurrentUser();
+        CatalogItem item = catalogItemRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Catalog item not found"));
+
+        if (!item.getBusinessId().equals(businessId)) {
+            throw new ForbiddenException("Unauthorized access to catalog item");
+        }
+
+        catalogItemRepository.delete(item);
+        AfterCommit.run(() -> catalogs.computeIfPresent(businessId, (key, catalog) -> catalog.remove(id)));
+    }
+
+    /**
+     * Builds catalog entries from what the business has already billed. Each distinct item name becomes one entry
+     * with the price, GST rate and HSN code of its most recent invoice line; usage counts are refreshed. Runs in
+     * the reporting bulkhead, since it aggregates every invoice line the business has.
+     */
+    public Map<String, Integer> learnFromInvoices() {
+        Long businessId = getBusinessIdForCurrentUser();
+        return reportingWorkload.run("catalog.learn",
+                () -> transactionTemplate.execute(tx -> learnFromInvoices(businessId)));
+    }
+
+    private Map<String, Integer> learnFromInvoices(Long businessId) {
+        List<ItemUsage> usage = invoiceItemRepository.findItemUsage(businessId);
+
+        Map<String, CatalogItem> existing = catalogItemRepository.findByBusinessId(businessId).stream()
+                .collect(Collectors.toMap(CatalogItem::getNameKey, item -> item));
+        Map<Long, Long> countsByLatestId = usage.stream()
+                .collect(Collectors.toMap(ItemUsage::latestItemId, ItemUsage::count));
+
+        List<CatalogItem> changed = new ArrayList<>();
+        int created = 0;
+        List<Long> latestIds = new ArrayList<>(countsByLatestId.keySet());
+        for (int from = 0; from < latestIds.size(); from += LEARN_BATCH_SIZE) {
+            List<Long> batch = latestIds.subList(from, Math.min(from + LEARN_BATCH_SIZE, latestIds.size()));
+            for (InvoiceItem line : invoiceItemRepository.findAllById(batch)) {
+                String nameKey = nameKey(line.getItemName());
+                long count = countsByLatestId.get(line.getId());
+                CatalogItem item = existing.get(nameKey);
+                if (item == null) {
+                    item = new CatalogItem();
+                    item.setBusinessId(businessId);
+                    item.setName(line.getItemName().trim());
+                    item.setNameKey(nameKey);
+                    item.setDescription(line.getItemDescription());
+                    item.setHsnCode(line.getHsnCode());
+                    item.setPrice(line.getPrice());
+                    item.setGstRate(line.getGstRate());
+                    item.setUsageCount(count);
+                    existing.put(nameKey, item);
+                    changed.add(item);
+                    created++;
+                } else if (item.getUsageCount() < count) {
+                    item.setUsageCount(count);
+                    changed.add(item);
+                }
+            }
+        }
+
+        catalogItemRepository.saveAll(changed);
+        // Reloaded on next use rather than patched entry by entry
+        AfterCommit.run(() -> catalogs.remove(businessId));
+
+        Map<String, Integer> result = new HashMap<>();
+        result.put("created", created);
+        result.put("updated", changed.size() - created);
+        return result;
+    }
+
+    public HsnRateResponse lookupHsnRate(String code) {
+        return hsnRateTable.lookup(code)
+                .orElseThrow(() -> new ValidationException("No GST rate known for HSN/SAC code " + code));
+    }
+
+    /**
+     * Fills in invoice lines from the catalog and HSN rate table and validates the result. Explicit values on a
+     * line win over the catalog item, and an HSN rate is only used when neither gives a GST rate. The referenced
+     * catalog items are read in one query rather than from the cache, so an item deleted or repriced on another
+     * node is never billed from a stale copy.
+     */
+    public List<InvoiceItemRequest> resolveItems(Long businessId, List<InvoiceItemRequest> items) {
+        Set<Long> catalogItemIds = items.stream()
+                .map(InvoiceItemRequest::getCatalogItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, CatalogItem> catalogItems = catalogItemIds.isEmpty() ? Map.of()
+                : catalogItemRepository.findAllById(catalogItemIds).stream()
+                        .collect(Collectors.toMap(CatalogItem::getId, item -> item));
+
+        List<InvoiceItemRequest> resolved = new ArrayList<>(items.size());
+        for (InvoiceItemRequest itemReq : items) {
+            InvoiceItemRequest line = new InvoiceItemRequest();
+            line.setCatalogItemId(itemReq.getCatalogItemId());
+            line.setItemName(itemReq.getItemName());
+            line.setItemDescription(itemReq.getItemDescription());
+            line.setHsnCode(itemReq.getHsnCode());
+            line.setQuantity(itemReq.getQuantity());
+            line.setPrice(itemReq.getPrice());
+            line.setDiscount(itemReq.getDiscount());
+            line.setGstRate(itemReq.getGstRate());
+
+            if (itemReq.getCatalogItemId() != null) {
+                CatalogItem catalogItem = catalogItems.get(itemReq.getCatalogItemId());
+                if (catalogItem == null) {
+                    throw new NotFoundException("Catalog item not found: " + itemReq.getCatalogItemId());
+                }
+                if (!catalogItem.getBusinessId().equals(businessId)) {
+                    throw new ForbiddenException("Unauthorized access to catalog item");
+                }
+                if (isBlank(line.getItemName())) {
+                    line.setItemName(catalogItem.getName());
+                }
+                if (line.getItemDescription() == null) {
+                    line.setItemDescription(catalogItem.getDescription());
+                }
+                if (line.getHsnCode() == null) {
+                    line.setHsnCode(catalogItem.getHsnCode());
+                }
+                if (line.getPrice() == null) {
+                    line.setPrice(catalogItem.getPrice());
+                }
+                if (line.getGstRate() == null) {
+                    line.setGstRate(catalogItem.getGstRate());
+                }
+            }
+            if (line.getGstRate() == null) {
+                line.setGstRate(hsnRateTable.rateFor(line.getHsnCode()).orElse(null));
+            }
+
+            if (isBlank(line.getItemName())) {
+                throw new ValidationException("Item name is required");
+            }
+            if (line.getPrice() == null) {
+                throw new ValidationException("Price is required for item " + line.getItemName());
+            }
+            if (line.getGstRate() == null) {
+                throw new ValidationException("GST rate is required for item " + line.getItemName());
+            }
+            resolved.add(line);
+        }
+        return resolved;
+    }
+
+    // Loaded outside the map so the query never runs while a map bin is locked; when two requests load the same
+    // business at once, the later load wins
+    private BusinessCatalog catalog(Long businessId) {
+        long now = System.currentTimeMillis();
+        BusinessCatalog cached = catalogs.get(businessId);
+        if (cached != null && now - cached.loadedAt < cacheTtlMs) {
+            return cached;
+        }
+
+        BusinessCatalog loaded = new BusinessCatalog(now);
+        catalogItemRepository.findByBusinessId(businessId).forEach(item -> loaded.put(mapToResponse(item)));
+        return catalogs.merge(businessId, loaded,
+                (current, candidate) -> current.loadedAt >= candidate.loadedAt ? current : candidate);
+    }
+
+    private static String nameKey(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private CatalogItemResponse mapToResponse(CatalogItem item) {
+        return new CatalogItemResponse(item.getId(), item.getName(), item.getDescription(), item.getHsnCode(),
+                item.getPrice(), item.getGstRate(), item.getUsageCount());
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+
+    /**
+     * The prefix index has one key per word of the name ("steel rod 12mm" is found by "steel", "rod" and "12"),
+     * suffixed with the item id so items with the same name don't collide.
+     */
+    private static final class BusinessCatalog {
+
+        private final long loadedAt;
+        private final Map<Long, CatalogItemResponse> byId = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, CatalogItemResponse> prefixIndex = new ConcurrentSkipListMap<>();
+
+        private BusinessCatalog(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        private BusinessCatalog put(CatalogItemResponse item) {
+            remove(item.getId());
+            byId.put(item.getId(), item);
+            for (String key : prefixKeys(item)) {
+                prefixIndex.put(key, item);
+            }
+            return this;
+        }
+
+        private BusinessCatalog remove(Long id) {
+            CatalogItemResponse previous = byId.remove(id);
+            if (previous != null) {
+                prefixKeys(previous).forEach(prefixIndex::remove);
+            }
+            return this;
+        }
+
+        private static List<String> prefixKeys(CatalogItemResponse item) {
+            String name = nameKey(item.getName());
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < name.length(); i++) {
+                if (i == 0 || name.charAt(i - 1) == ' ') {
+                    keys.add(name.substring(i) + '\u0000' + item.getId());
+                }
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.invoice.catalog.service;
+
+import com.invoice.catalog.dto.HsnRateResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * HSN/SAC to GST rate lookup, loaded once from a bundled CSV into an immutable map. Codes match on their longest
+ * known prefix, so an 8-digit code falls back to its heading or chapter rate.
+ */
+@Slf4j
+@Component
+public class HsnRateTable {
+
+    private static final int MIN_PREFIX = 2;
+
+    private final Map<String, HsnRateResponse> ratesByCode;
+
+    public HsnRateTable(@Value("${catalog.hsn-rates:classpath:catalog/hsn-gst-rates.csv}") Resource rates) {
+        Map<String, HsnRateResponse> loaded = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(rates.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(",", 3);
+                if (columns.length < 2) {
+                    throw new IllegalStateException("Malformed HSN rate on line " + lineNumber + ": " + line);
+                }
+                String code = columns[0].trim();
+                loaded.put(code, new HsnRateResponse(code, code, columns.length > 2 ? columns[2].trim() : null,
+                        new BigDecimal(columns[1].trim())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("HSN rate table could not be loaded", e);
+        }
+        this.ratesByCode = Map.copyOf(loaded);
+        log.info("Loaded {} HSN/SAC GST rates", ratesByCode.size());
+    }
+
+    public Optional<HsnRateResponse> lookup(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        String digits = code.trim();
+        for (int length = digits.length(); length >= MIN_PREFIX; length--) {
+            HsnRateResponse match = ratesByCode.get(digits.substring(0, length));
+            if (match != null) {
+                return Optional.of(new HsnRateResponse(digits, match.getMatchedCode(), match.getDescription(),
+                        match.getGstRate()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<BigDecimal> rateFor(String code) {
+        return lookup(code).map(HsnRateResponse::getGstRate);
+    }
+}
@@ -0,0 +1,139 @@
+package com.invoice.common;
+
+import com.invoice.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent reads: the first caller for a key runs the loader on its own thread and every
+ * caller arriving while it runs waits for the same result. A finished result is also reused for a short window
+ * ({@code singleflight.reuse-ms}, 0 to disable), which absorbs bursts such as many tabs opening a dashboard at once.
+ *
+ * <p>Writers call {@link #invalidateAfterCommit} so nobody joins or reuses a read that started before the write
+ * committed. Results are shared between callers and must not be mutated.
+ *
+ * <p>With a read replica, users who just wrote read from the primary; their reads get flights of their own, so they
+ * never join or reuse a result another user read from a replica that may not have their write yet.
+ *
+ * <p>The collapse ratio per flight name is {@code 1 - singleflight.executions / singleflight.calls}.
+ */
+@Component
+public class SingleFlight {
+
+    private static final String PRIMARY_SUFFIX = ":primary";
+
+    private final long reuseNanos;
+    private final MeterRegistry meterRegistry;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> countersByName = new ConcurrentHashMap<>();
+
+    public SingleFlight(MeterRegistry meterRegistry, ObjectProvider<ReadYourWritesTracker> readYourWritesTracker,
+            @Value("${singleflight.reuse-ms:1000}") long reuseMs) {
+        this.meterRegistry = meterRegistry;
+        this.readYourWritesTracker = readYourWritesTracker.getIfAvailable();
+        this.reuseNanos = reuseMs * 1_000_000;
+    }
+
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private boolean reusable(long now, long reuseNanos) {
+            return !result.isDone() || now - completedAt < reuseNanos;
+        }
+    }
+
+    /**
+     * @param name flight name, such as the endpoint; also the metrics tag
+     * @param key  everything else the result depends on - business id and parameters
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        Counter[] counters = countersByName.computeIfAbsent(name, this::registerCounters);
+        counters[0].increment();
+        String flightKey = name + ":" + key + (readsFromPrimary() ? PRIMARY_SUFFIX : "");
+
+        while (true) {
+            Flight flight = new Flight();
+            Flight existing = flights.putIfAbsent(flightKey, flight);
+            if (existing != null) {
+                if (existing.reusable(System.nanoTime(), reuseNanos)) {
+                    return (T) await(existing.result);
+                }
+                flights.remove(flightKey, existing);
+                continue;
+            }
+
+            counters[1].increment();
+            try {
+                T value = loader.get();
+                flight.completedAt = System.nanoTime();
+                flight.result.complete(value);
+                if (reuseNanos <= 0) {
+                    flights.remove(flightKey, flight);
+                }
+                return value;
+            } catch (RuntimeException | Error e) {
+                // Failures are shared with current waiters but never reused
+                flights.remove(flightKey, flight);
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    public void invalidateAfterCommit(String name, Object key) {
+        String flightKey = name + ":" + key;
+        AfterCommit.run(() -> {
+            flights.remove(flightKey);
+            flights.remove(flightKey + PRIMARY_SUFFIX);
+        });
+    }
+
+    private boolean readsFromPrimary() {
+        if (readYourWritesTracker == null) {
+            return false;
+        }
+        String user = ReadYourWritesTracker.currentUser();
+        return user != null && readYourWritesTracker.isSticky(user);
+    }
+
+    // Finished flights otherwise stay until the same key is read again
+    @Scheduled(fixedDelayString = "${singleflight.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        flights.entrySet().removeIf(entry -> !entry.getValue().reusable(now, reuseNanos));
+    }
+
+    private Counter[] registerCounters(String name) {
+        return new Counter[]{
+                Counter.builder("singleflight.calls").tag("name", name)
+                        .description("Reads requested through single-flight").register(meterRegistry),
+                Counter.builder("singleflight.executions").tag("name", name)
+                        .description("Reads that actually ran their loader").register(meterRegistry)
+        };
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
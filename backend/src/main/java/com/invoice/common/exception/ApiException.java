@@ -0,0 +1,33 @@
+package com.invoice.common.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Base of the errors services raise on purpose, each carrying its HTTP status. These are expected outcomes - a
+ * missing record, a bad parameter - so by default no stack trace is captured: a scanner hitting them in a loop should
+ * not pay for stacks nobody reads. Wrapping a real failure as the cause keeps the trace.
+ */
+public abstract class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    protected ApiException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    protected ApiException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause, false, true);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    // Extra response headers, such as Retry-After
+    public HttpHeaders getHeaders() {
+        return HttpHeaders.EMPTY;
+    }
+}
@@ -0,0 +1,17 @@
+package com.invoice.common.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The request clashes with the current state, such as a duplicate or an operation already done. Reported as 409.
+ */
+public class ConflictException extends ApiException {
+
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(HttpStatus.CONFLICT, message, cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.invoice.common.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The record exists but belongs to another business. Reported as 403.
+ */
+public class ForbiddenException extends ApiException {
+
+    public ForbiddenException(String message) {
+        super(HttpStatus.FORBIDDEN, message);
+    }
+
+    public ForbiddenException(String message, Throwable cause) {
+        super(HttpStatus.FORBIDDEN, message, cause);
+    }
+}
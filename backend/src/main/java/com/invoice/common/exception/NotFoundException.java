@@ -0,0 +1,17 @@
+package com.invoice.common.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A requested record does not exist, or not for the caller's business. Reported as 404.
+ */
+public class NotFoundException extends ApiException {
+
+    public NotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message);
+    }
+
+    public NotFoundException(String message, Throwable cause) {
+        super(HttpStatus.NOT_FOUND, message, cause);
+    }
+}
@@ -0,0 +1,17 @@
+package com.invoice.common.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The request itself is invalid: a bad parameter, missing field or unsupported value. Reported as 400.
+ */
+public class ValidationException extends ApiException {
+
+    public ValidationException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+
+    public ValidationException(String message, Throwable cause) {
+        super(HttpStatus.BAD_REQUEST, message, cause);
+    }
+}
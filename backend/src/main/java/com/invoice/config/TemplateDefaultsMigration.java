@@ -0,0 +1,61 @@
+package com.invoice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off cleanup for databases created before uk_invoice_templates_default existed, when racing default switches
+ * could leave a business with several default templates. ddl-auto=update cannot add the unique key over such rows,
+ * so before the schema update runs every business is left with only its newest default. Once the key exists this
+ * does nothing.
+ */
+@Slf4j
+@Component
+public class TemplateDefaultsMigration implements InitializingBean {
+
+    private static final String TABLE_EXISTS = "SELECT COUNT(*) FROM information_schema.tables "
+            + "WHERE table_schema = DATABASE() AND table_name = 'invoice_templates'";
+    private static final String KEY_EXISTS = "SELECT COUNT(*) FROM information_schema.statistics "
+            + "WHERE table_schema = DATABASE() AND table_name = 'invoice_templates' "
+            + "AND index_name = 'uk_invoice_templates_default'";
+    // The derived table is materialized first, which is what lets MySQL update the table it reads from
+    private static final String CLEAR_EXTRA_DEFAULTS = "UPDATE invoice_templates t "
+            + "JOIN (SELECT business_id, MAX(id) AS keep_id FROM invoice_templates WHERE is_default = true "
+            + "GROUP BY business_id HAVING COUNT(*) > 1) d ON t.business_id = d.business_id "
+            + "SET t.is_default = false WHERE t.is_default = true AND t.id <> d.keep_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TemplateDefaultsMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (count(TABLE_EXISTS) == 0 || count(KEY_EXISTS) > 0) {
+            return;
+        }
+        int cleared = jdbcTemplate.update(CLEAR_EXTRA_DEFAULTS);
+        if (cleared > 0) {
+            log.warn("Cleared {} duplicate default templates before adding uk_invoice_templates_default", cleared);
+        }
+    }
+
+    private int count(String sql) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    // Hibernate's schema update runs when the EntityManagerFactory starts, so that has to wait for the cleanup
+    @Component
+    static class EntityManagerFactoryDependsOnTemplateDefaultsMigration
+            extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnTemplateDefaultsMigration() {
+            super(TemplateDefaultsMigration.class);
+        }
+    }
+}
@@ -4,12 +4,18 @@ import com.invoice.auth.entity.User;
 import com.invoice.auth.repository.UserRepository;
 import com.invoice.business.entity.Business;
 import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.SingleFlight;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
 import com.invoice.customer.dto.CustomerRequest;
 import com.invoice.customer.dto.CustomerResponse;
 import com.invoice.customer.entity.Customer;
 import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxService;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,17 +23,24 @@ import java.util.stream.Collectors;
 @Service
 public class CustomerService {
 
+    private static final String CUSTOMER_LIST_FLIGHT = "customers.list";
+
     private final CustomerRepository customerRepository;
     private final BusinessRepository businessRepository;
     private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final SingleFlight singleFlight;
 
     public CustomerService(CustomerRepository customerRepository, BusinessRepository businessRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository, OutboxService outboxService, SingleFlight singleFlight) {
         this.customerRepository = customerRepository;
         this.businessRepository = businessRepository;
         this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.singleFlight = singleFlight;
     }
 
+    @Transactional
     public CustomerResponse createCustomer(CustomerRequest request) {
         Long businessId = getBusinessIdForCurrentUser();
 
@@ -43,37 +56,26 @@ public class CustomerService {
 
         Customer savedCustomer = customerRepository.save(customer);
 
-        return new CustomerResponse(
-                savedCustomer.getId(),
-                savedCustomer.getBusinessId(),
-                savedCustomer.getName(),
-                savedCustomer.getPhone(),
-                savedCustomer.getEmail(),
-                savedCustomer.getAddress(),
-                savedCustomer.getCity(),
-                savedCustomer.getStateCode(),
-                savedCustomer.getGstin()
-        );
+        CustomerResponse response = convertToResponse(savedCustomer);
+        outboxService.record(OutboxEvent.AggregateType.CUSTOMER, savedCustomer.getId(), businessId,
+                OutboxEvent.EventType.CUSTOMER_CREATED, response);
+        singleFlight.invalidateAfterCommit(CUSTOMER_LIST_FLIGHT, businessId);
+
+        return response;
     }
 
+    @Transactional(readOnly = true)
     public List<CustomerResponse> getAllCustomers() {
         Long businessId = getBusinessIdForCurrentUser();
 
-        return customerRepository.findByBusinessId(businessId).stream()
-                .map(c -> new CustomerResponse(
-                c.getId(),
-                c.getBusinessId(),
-                c.getName(),
-                c.getPhone(),
-                c.getEmail(),
-                c.getAddress(),
-                c.getCity(),
-                c.getStateCode(),
-                c.getGstin()
-        ))
-                .collect(Collectors.toList());
+        // Concurrent calls for the same business share one query
+        return singleFlight.execute(CUSTOMER_LIST_FLIGHT, businessId, () ->
+                customerRepository.findByBusinessId(businessId).stream()
+                        .map(this::convertToResponse)
+                        .collect(Collectors.toList()));
     }
 
+    @Transactional(readOnly = true)
     public List<CustomerResponse> searchCustomers(String query) {
         Long businessId = getBusinessIdForCurrentUser();
 
@@ -92,14 +94,15 @@ public class CustomerService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public CustomerResponse getCustomerById(Long customerId) {
         Long businessId = getBusinessIdForCurrentUser();
 
         Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new RuntimeException("Customer not found"));
+                .orElseThrow(() -> new NotFoundException("Customer not found"));
 
         if (!customer.getBusinessId().equals(businessId)) {
-            throw new RuntimeException("Unauthorized access to customer");
+            throw new ForbiddenException("Unauthorized access to customer");
         }
 
         return new CustomerResponse(
@@ -115,13 +118,28 @@ public class CustomerService {
         );
     }
 
+    public CustomerResponse convertToResponse(Customer customer) {
+        return new CustomerResponse(
+                customer.getId(),
+                customer.getBusinessId(),
+                customer.getName(),
+                customer.getPhone(),
+                customer.getEmail(),
+                customer.getAddress(),
+                customer.getCity(),
+                customer.getStateCode(),
+                customer.getGstin()
+        );
+    }
+
     private Long getBusinessIdForCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
         Business business = businessRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Business not found. Please create a business profile first."));
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
 
         return business.getId();
     }
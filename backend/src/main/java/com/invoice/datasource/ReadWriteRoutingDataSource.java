@@ -0,0 +1,36 @@
+package com.invoice.datasource;
+
+import com.invoice.common.AfterCommit;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary. Must sit behind a
+ * {@code LazyConnectionDataSourceProxy}, so the target is chosen once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = ReadYourWritesTracker.currentUser();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // A user who just wrote reads from the primary until the replica has caught up
+            return user != null && readYourWritesTracker.isSticky(user) ? Target.PRIMARY : Target.REPLICA;
+        }
+        // Connections outside a transaction (lazy loads under open-session-in-view) are reads, not writes
+        if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            AfterCommit.run(() -> readYourWritesTracker.recordWrite(user));
+        }
+        return Target.PRIMARY;
+    }
+}
@@ -0,0 +1,42 @@
+package com.invoice.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users committed a write recently, so their reads stay on the primary until the replica has had
+ * time to catch up. The API is stateless, so the authenticated user stands in for the session.
+ */
+public class ReadYourWritesTracker {
+
+    private final long stickyNanos;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long stickyMs) {
+        this.stickyNanos = stickyMs * 1_000_000;
+    }
+
+    public void recordWrite(String user) {
+        lastWriteByUser.put(user, System.nanoTime());
+    }
+
+    public boolean isSticky(String user) {
+        Long lastWrite = lastWriteByUser.get(user);
+        return lastWrite != null && System.nanoTime() - lastWrite < stickyNanos;
+    }
+
+    public static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.sticky-ms:5000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteByUser.values().removeIf(lastWrite -> now - lastWrite >= stickyNanos);
+    }
+}
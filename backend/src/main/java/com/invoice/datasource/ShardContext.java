@@ -0,0 +1,70 @@
+package com.invoice.datasource;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work runs on. Requests get it from {@link ShardRoutingFilter}; background
+ * jobs set it per shard through {@link ShardDirectory}. Work handed to another thread must be wrapped, since the
+ * value is thread-local.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        try (Scope ignored = enter(shard)) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Switches the current thread to the shard until the returned scope is closed.
+     */
+    public static Scope enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> restore(previous);
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    public static void runOn(int shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Integer shard = CURRENT.get();
+        if (shard == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = enter(shard)) {
+                return task.call();
+            }
+        };
+    }
+
+    private static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
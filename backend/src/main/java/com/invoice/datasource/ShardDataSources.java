@@ -0,0 +1,42 @@
+package com.invoice.datasource;
+
+import com.invoice.common.exception.ValidationException;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * The physical pool of every shard, keyed by shard id. Shard 0 is the home shard.
+ */
+public record ShardDataSources(Map<Integer, DataSource> byShard) {
+
+    public static final int HOME_SHARD = 0;
+
+    public DataSource home() {
+        return byShard.get(HOME_SHARD);
+    }
+
+    public DataSource get(int shard) {
+        DataSource dataSource = byShard.get(shard);
+        if (dataSource == null) {
+            throw new ValidationException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    // Called by the container on shutdown; the home pool is a bean of its own and is closed separately
+    public void close() {
+        byShard.forEach((shard, dataSource) -> {
+            if (shard != HOME_SHARD && dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+}
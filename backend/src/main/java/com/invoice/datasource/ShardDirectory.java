@@ -0,0 +1,211 @@
+package com.invoice.datasource;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps businesses to shards through the {@code business_shards} table on the home shard. Businesses without a row
+ * live on the home shard, which is also where every business starts. Entries are cached for
+ * {@code app.sharding.directory-cache-ms}; a move freezes the business for longer than that, so every node has seen
+ * the freeze before data is copied.
+ *
+ * <p>With sharding disabled there is a single shard and every method runs its work without a shard context.
+ */
+@Slf4j
+@Component
+public class ShardDirectory {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS business_shards ("
+            + "business_id BIGINT NOT NULL PRIMARY KEY, "
+            + "shard_id INT NOT NULL, "
+            + "moving BOOLEAN NOT NULL DEFAULT FALSE, "
+            + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)";
+
+    private static final String UPSERT = "INSERT INTO business_shards (business_id, shard_id, moving) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE shard_id = VALUES(shard_id), moving = VALUES(moving)";
+
+    public record Placement(int shard, boolean moving) {
+    }
+
+    private record CachedPlacement(Placement placement, long loadedAt) {
+    }
+
+    // Every row of business_shards, for background jobs that check many businesses per run
+    private record Snapshot(Map<Long, Placement> placements, Set<Long> frozen, long loadedAt) {
+    }
+
+    private final ShardDataSources shardDataSources;
+    private final JdbcTemplate homeJdbcTemplate;
+    private final long cacheNanos;
+    private final Map<Long, CachedPlacement> placements = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+    // A business never changes owner, so this needs no expiry
+    private final Map<String, Long> businessIdsByUser = new ConcurrentHashMap<>();
+
+    public ShardDirectory(ObjectProvider<ShardDataSources> shardDataSources,
+            @Value("${app.sharding.directory-cache-ms:5000}") long directoryCacheMs) {
+        this.shardDataSources = shardDataSources.getIfAvailable();
+        this.homeJdbcTemplate = this.shardDataSources != null ? new JdbcTemplate(this.shardDataSources.home()) : null;
+        this.cacheNanos = directoryCacheMs * 1_000_000;
+    }
+
+    @PostConstruct
+    void createDirectoryTable() {
+        // Lives only on the home shard, so it is created here rather than by Hibernate on whichever shard it picks
+        if (isEnabled()) {
+            homeJdbcTemplate.execute(CREATE_TABLE);
+        }
+    }
+
+    public boolean isEnabled() {
+        return shardDataSources != null;
+    }
+
+    public List<Integer> shardIds() {
+        return isEnabled() ? new ArrayList<>(shardDataSources.byShard().keySet()) : List.of(ShardDataSources.HOME_SHARD);
+    }
+
+    public Placement placementFor(Long businessId) {
+        if (!isEnabled()) {
+            return new Placement(ShardDataSources.HOME_SHARD, false);
+        }
+        CachedPlacement cached = placements.get(businessId);
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt() < cacheNanos) {
+            return cached.placement();
+        }
+        Placement placement = loadPlacement(businessId);
+        placements.put(businessId, new CachedPlacement(placement, now));
+        return placement;
+    }
+
+    public Placement loadPlacement(Long businessId) {
+        List<Placement> rows = homeJdbcTemplate.query(
+                "SELECT shard_id, moving FROM business_shards WHERE business_id = ?",
+                (rs, rowNum) -> new Placement(rs.getInt("shard_id"), rs.getBoolean("moving")), businessId);
+        return rows.isEmpty() ? new Placement(ShardDataSources.HOME_SHARD, false) : rows.get(0);
+    }
+
+    /**
+     * Whether a background job running on the current shard may work on the business's rows there. It may not while
+     * the business is frozen for a move, nor once it lives on another shard and its rows here only wait to be
+     * deleted. Like {@link #placementFor}, the answer may be up to {@code app.sharding.directory-cache-ms} old.
+     */
+    public boolean isServedHere(Long businessId) {
+        if (!isEnabled()) {
+            return true;
+        }
+        Placement placement = snapshot().placements().getOrDefault(businessId,
+                new Placement(ShardDataSources.HOME_SHARD, false));
+        Integer current = ShardContext.current();
+        return !placement.moving() && placement.shard() == (current != null ? current : ShardDataSources.HOME_SHARD);
+    }
+
+    /**
+     * Businesses frozen for a move, for jobs that claim rows in bulk and must leave theirs untouched.
+     */
+    public Set<Long> frozenBusinessIds() {
+        return isEnabled() ? snapshot().frozen() : Set.of();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - current.loadedAt() < cacheNanos) {
+            return current;
+        }
+        Map<Long, Placement> all = new HashMap<>();
+        Set<Long> frozen = new HashSet<>();
+        homeJdbcTemplate.query("SELECT business_id, shard_id, moving FROM business_shards", rs -> {
+            Placement placement = new Placement(rs.getInt("shard_id"), rs.getBoolean("moving"));
+            all.put(rs.getLong("business_id"), placement);
+            if (placement.moving()) {
+                frozen.add(rs.getLong("business_id"));
+            }
+        });
+        current = new Snapshot(all, Set.copyOf(frozen), now);
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * Freezes the business for a move, unless it has moved or another move got there first.
+     */
+    public boolean beginMove(Long businessId, int sourceShard) {
+        homeJdbcTemplate.update("INSERT IGNORE INTO business_shards (business_id, shard_id, moving) VALUES (?, ?, FALSE)",
+                businessId, sourceShard);
+        int claimed = homeJdbcTemplate.update(
+                "UPDATE business_shards SET moving = TRUE WHERE business_id = ? AND shard_id = ? AND moving = FALSE",
+                businessId, sourceShard);
+        placements.remove(businessId);
+        snapshot = null;
+        return claimed == 1;
+    }
+
+    public void setPlacement(Long businessId, Placement placement) {
+        homeJdbcTemplate.update(UPSERT, businessId, placement.shard(), placement.moving());
+        placements.remove(businessId);
+        snapshot = null;
+    }
+
+    // Every users row and a copy of every businesses row stay on the home shard, so this lookup works before the
+    // shard is known
+    public Optional<Long> businessIdForUser(String email) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Long businessId = businessIdsByUser.get(email);
+        if (businessId == null) {
+            List<Long> rows = homeJdbcTemplate.queryForList(
+                    "SELECT b.id FROM businesses b JOIN users u ON u.id = b.user_id WHERE u.email = ?", Long.class, email);
+            if (rows.isEmpty()) {
+                return Optional.empty(); // Not cached: the user may create a business next
+            }
+            businessId = rows.get(0);
+            businessIdsByUser.put(email, businessId);
+        }
+        return Optional.of(businessId);
+    }
+
+    /**
+     * Runs the action against the shard that owns the business; for work that starts outside a request, such as
+     * delivery callbacks.
+     */
+    public <T> T onBusinessShard(Long businessId, Supplier<T> action) {
+        if (!isEnabled()) {
+            return action.get();
+        }
+        return ShardContext.callOn(placementFor(businessId).shard(), action);
+    }
+
+    /**
+     * Runs a background job once per shard. A failing shard is logged and does not stop the others.
+     */
+    public void forEachShard(String job, Runnable action) {
+        if (!isEnabled()) {
+            action.run();
+            return;
+        }
+        for (int shard : shardIds()) {
+            try {
+                ShardContext.runOn(shard, action);
+            } catch (RuntimeException e) {
+                log.error("{} failed on shard {}", job, shard, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.invoice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("app.sharding")
+public class ShardProperties {
+
+    private boolean enabled = false;
+
+    // Additional shards by id; shard 0 is always spring.datasource and holds users and the shard directory
+    private Map<Integer, Shard> shards = new LinkedHashMap<>();
+
+    // How long a node may route on a cached directory entry
+    private long directoryCacheMs = 5000;
+
+    // Extra wait after freezing a business, for writes that were already running to finish
+    private long moveDrainMs = 2000;
+
+    @Data
+    public static class Shard {
+
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,76 @@
+package com.invoice.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.common.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Pins each authenticated request to the shard of the caller's business. Runs after JWT authentication; anonymous
+ * requests and users without a business stay on the home shard. While a business is being moved its writes are
+ * refused with 503, and reads keep being served from the source shard.
+ */
+@Component
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ShardDirectory shardDirectory;
+    private final ObjectMapper objectMapper;
+    private final long retryAfterSeconds;
+
+    public ShardRoutingFilter(ShardDirectory shardDirectory, ObjectMapper objectMapper,
+            @Value("${app.sharding.directory-cache-ms:5000}") long directoryCacheMs) {
+        this.shardDirectory = shardDirectory;
+        this.objectMapper = objectMapper;
+        // Other nodes notice the end of a move within one directory refresh
+        this.retryAfterSeconds = Math.max(1, (directoryCacheMs + 999) / 1000);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !shardDirectory.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Optional<Long> businessId = authentication != null && authentication.isAuthenticated()
+                ? shardDirectory.businessIdForUser(authentication.getName())
+                : Optional.empty();
+        if (businessId.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ShardDirectory.Placement placement = shardDirectory.placementFor(businessId.get());
+        if (placement.moving() && !READ_METHODS.contains(request.getMethod())) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(LocalDateTime.now(),
+                    HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable",
+                    "This business is being moved; please retry shortly", request.getRequestURI()));
+            return;
+        }
+
+        try (ShardContext.Scope ignored = ShardContext.enter(placement.shard())) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
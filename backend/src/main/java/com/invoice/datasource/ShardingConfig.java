@@ -0,0 +1,65 @@
+package com.invoice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with one pool per shard behind a {@link ShardRoutingDataSource} when
+ * {@code app.sharding.enabled=true}. Shard 0 is {@code spring.datasource}; every other shard needs the same schema
+ * and its own auto-increment offset, so ids stay unique when a business is moved between shards.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(HikariDataSource homeShardDataSource, ShardProperties properties,
+            DataSourceProperties dataSourceProperties) {
+        Map<Integer, DataSource> byShard = new LinkedHashMap<>();
+        byShard.put(ShardDataSources.HOME_SHARD, homeShardDataSource);
+        properties.getShards().forEach((id, shard) -> {
+            if (id == ShardDataSources.HOME_SHARD) {
+                throw new IllegalStateException("Shard 0 is spring.datasource and cannot be configured under app.sharding.shards");
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + id);
+            dataSource.setJdbcUrl(shard.getJdbcUrl());
+            dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            dataSource.setUsername(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.determineUsername());
+            dataSource.setPassword(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.determinePassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            byShard.put(id, dataSource);
+        });
+        return new ShardDataSources(Map.copyOf(byShard));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(new LinkedHashMap<>(shardDataSources.byShard()));
+        routing.setDefaultTargetDataSource(shardDataSources.home());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,39 @@
+package com.invoice.datasource.controller;
+
+import com.invoice.datasource.dto.ShardMoveRequest;
+import com.invoice.datasource.dto.ShardMoveResponse;
+import com.invoice.datasource.dto.ShardPlacementResponse;
+import com.invoice.datasource.service.ShardMoveService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Restricted to ROLE_ADMIN in SecurityConfig
+@RestController
+@RequestMapping("/api/admin/shards")
+public class ShardAdminController {
+
+    private final ShardMoveService shardMoveService;
+
+    public ShardAdminController(ShardMoveService shardMoveService) {
+        this.shardMoveService = shardMoveService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Integer>> getShards() {
+        return ResponseEntity.ok(shardMoveService.getShards());
+    }
+
+    @GetMapping("/businesses/{businessId}")
+    public ResponseEntity<ShardPlacementResponse> getPlacement(@PathVariable Long businessId) {
+        return ResponseEntity.ok(shardMoveService.getPlacement(businessId));
+    }
+
+    // Blocks until the move has finished, which includes two directory-cache waits
+    @PostMapping("/move")
+    public ResponseEntity<ShardMoveResponse> moveBusiness(@Valid @RequestBody ShardMoveRequest request) {
+        return ResponseEntity.ok(shardMoveService.moveBusiness(request.getBusinessId(), request.getTargetShard()));
+    }
+}
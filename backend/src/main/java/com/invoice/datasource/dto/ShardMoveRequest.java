@@ -0,0 +1,16 @@
+package com.invoice.datasource.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ShardMoveRequest {
+
+    @NotNull(message = "Business ID is required")
+    private Long businessId;
+
+    @NotNull(message = "Target shard is required")
+    @Min(value = 0, message = "Target shard must not be negative")
+    private Integer targetShard;
+}
@@ -0,0 +1,19 @@
+package com.invoice.datasource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardMoveResponse {
+
+    private Long businessId;
+    private Integer sourceShard;
+    private Integer targetShard;
+    // Rows copied per table, in copy order
+    private Map<String, Integer> copiedRows;
+}
@@ -0,0 +1,15 @@
+package com.invoice.datasource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardPlacementResponse {
+
+    private Long businessId;
+    private Integer shard;
+    private Boolean moving;
+}
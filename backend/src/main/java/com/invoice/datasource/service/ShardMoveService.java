@@ -0,0 +1,275 @@
+package com.invoice.datasource.service;
+
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.datasource.ShardDataSources;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.datasource.ShardDirectory.Placement;
+import com.invoice.datasource.dto.ShardMoveResponse;
+import com.invoice.datasource.dto.ShardPlacementResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Moves one business to another shard while the application keeps running:
+ * <ol>
+ * <li>freeze the business in the directory, so writes get 503 while reads continue on the source shard and
+ * background jobs leave its rows alone (see {@link ShardDirectory#isServedHere});</li>
+ * <li>wait until every node has seen the freeze and in-flight writes have finished;</li>
+ * <li>copy its rows to the target in one transaction and compare row checksums before committing;</li>
+ * <li>point the directory at the target and unfreeze;</li>
+ * <li>once no node can still be reading the source, delete the rows there.</li>
+ * </ol>
+ * Ids are copied as they are, so shards must use distinct auto-increment offsets.
+ */
+@Slf4j
+@Service
+public class ShardMoveService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String COLUMNS = "SELECT column_name FROM information_schema.columns "
+            + "WHERE table_schema = DATABASE() AND table_name = ? AND extra NOT LIKE '%GENERATED%' "
+            + "ORDER BY ordinal_position";
+
+    private enum Ownership {
+        // Belongs to the business: copied, then deleted from the source
+        BUSINESS,
+        // The business row: lives with the business, where its profile is edited, but a copy stays on the home shard
+        // for the directory lookups. Upserted on every move, including the one back home
+        HOME_COPY,
+        // The owner's user row: logins and password changes run on the home shard, so the home copy is the live one.
+        // Upserted elsewhere, never overwritten at home
+        HOME_ANCHORED,
+        // Reference data other businesses use too: inserted if missing, never deleted
+        SHARED
+    }
+
+    private record TableCopy(String table, String condition, Ownership ownership) {
+    }
+
+    // Parents before children; deletes run in reverse
+    private static final List<TableCopy> TABLES = List.of(
+            new TableCopy("businesses", "id = ?", Ownership.HOME_COPY),
+            new TableCopy("users", "id = (SELECT b.user_id FROM businesses b WHERE b.id = ?)", Ownership.HOME_ANCHORED),
+            new TableCopy("predefined_templates", "id IN (SELECT s.template_id FROM business_template_settings s "
+                    + "WHERE s.business_id = ?)", Ownership.SHARED),
+            new TableCopy("customers", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("invoice_templates", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("business_template_settings", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("catalog_items", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("business_assets", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("webhook_endpoints", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("webhook_dead_letters", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("webhook_deliveries", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("recurring_invoice_schedules", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("recurring_invoice_items", "schedule_id IN (SELECT s.id FROM recurring_invoice_schedules s "
+                    + "WHERE s.business_id = ?)", Ownership.BUSINESS),
+            new TableCopy("invoices", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("invoice_items", "invoice_id IN (SELECT i.id FROM invoices i WHERE i.business_id = ?)",
+                    Ownership.BUSINESS),
+            new TableCopy("payments", "invoice_id IN (SELECT i.id FROM invoices i WHERE i.business_id = ?)",
+                    Ownership.BUSINESS),
+            new TableCopy("invoice_reminders", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("outbox_events", "business_id = ?", Ownership.BUSINESS),
+            new TableCopy("idempotency_keys", "owner = (SELECT u.email FROM users u JOIN businesses b "
+                    + "ON b.user_id = u.id WHERE b.id = ?)", Ownership.BUSINESS));
+
+    private final ShardDirectory shardDirectory;
+    private final ShardDataSources shardDataSources;
+    private final long directoryCacheMs;
+    private final long moveDrainMs;
+
+    public ShardMoveService(ShardDirectory shardDirectory, ObjectProvider<ShardDataSources> shardDataSources,
+            @Value("${app.sharding.directory-cache-ms:5000}") long directoryCacheMs,
+            @Value("${app.sharding.move-drain-ms:2000}") long moveDrainMs) {
+        this.shardDirectory = shardDirectory;
+        this.shardDataSources = shardDataSources.getIfAvailable();
+        this.directoryCacheMs = directoryCacheMs;
+        this.moveDrainMs = moveDrainMs;
+    }
+
+    public List<Integer> getShards() {
+        return shardDirectory.shardIds();
+    }
+
+    public ShardPlacementResponse getPlacement(Long businessId) {
+        Placement placement = shardDirectory.isEnabled()
+                ? shardDirectory.loadPlacement(businessId)
+                : shardDirectory.placementFor(businessId);
+        return new ShardPlacementResponse(businessId, placement.shard(), placement.moving());
+    }
+
+    public ShardMoveResponse moveBusiness(Long businessId, int targetShard) {
+        if (!shardDirectory.isEnabled()) {
+            throw new ConflictException("Sharding is not enabled");
+        }
+        int sourceShard = shardDirectory.loadPlacement(businessId).shard();
+        if (sourceShard == targetShard) {
+            throw new ConflictException("Business " + businessId + " is already on shard " + targetShard);
+        }
+        JdbcTemplate source = streamingJdbcTemplate(shardDataSources.get(sourceShard));
+        DataSource targetDataSource = shardDataSources.get(targetShard);
+        JdbcTemplate target = new JdbcTemplate(targetDataSource);
+        if (count(source, TABLES.get(0), businessId) == 0) {
+            throw new NotFoundException("Business not found");
+        }
+        if (!shardDirectory.beginMove(businessId, sourceShard)) {
+            throw new ConflictException("Business " + businessId + " is already being moved");
+        }
+
+        Map<String, Integer> copied;
+        try {
+            log.info("Moving business {} from shard {} to shard {}", businessId, sourceShard, targetShard);
+            pause(directoryCacheMs + moveDrainMs);
+            copied = new TransactionTemplate(new DataSourceTransactionManager(targetDataSource))
+                    .execute(tx -> copyAll(source, target, targetShard, businessId));
+        } catch (RuntimeException e) {
+            shardDirectory.setPlacement(businessId, new Placement(sourceShard, false));
+            log.error("Move of business {} to shard {} failed; it stays on shard {}", businessId, targetShard,
+                    sourceShard, e);
+            throw e;
+        }
+        shardDirectory.setPlacement(businessId, new Placement(targetShard, false));
+
+        // Nodes routing on a cached placement may read the source until their entry expires
+        pause(directoryCacheMs);
+        DataSource sourceDataSource = shardDataSources.get(sourceShard);
+        new TransactionTemplate(new DataSourceTransactionManager(sourceDataSource))
+                .executeWithoutResult(tx -> deleteFromSource(new JdbcTemplate(sourceDataSource), sourceShard, businessId));
+        log.info("Moved business {} to shard {}: {}", businessId, targetShard, copied);
+
+        return new ShardMoveResponse(businessId, sourceShard, targetShard, copied);
+    }
+
+    private Map<String, Integer> copyAll(JdbcTemplate source, JdbcTemplate target, int targetShard, Long businessId) {
+        Map<String, Integer> copied = new LinkedHashMap<>();
+        Map<String, List<String>> columnsByTable = new LinkedHashMap<>();
+        for (TableCopy table : TABLES) {
+            List<String> columns = target.queryForList(COLUMNS, String.class, table.table());
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("Table " + table.table() + " does not exist on the target shard");
+            }
+            columnsByTable.put(table.table(), columns);
+            copied.put(table.table(), copyTable(source, target, targetShard, table, columns, businessId));
+        }
+        // Anything written since the freeze aborts the move. Rows copied as they are must match column for column, so
+        // an update on the source is caught as well as an insert; rows the target keeps its own version of can only
+        // be counted
+        for (TableCopy table : TABLES) {
+            boolean keptByTarget = effectiveOwnership(table, targetShard) == Ownership.SHARED;
+            String check = keptByTarget ? countQuery(table) : checksumQuery(table, columnsByTable.get(table.table()));
+            String expected = source.queryForObject(check, String.class, businessId);
+            String actual = target.queryForObject(check, String.class, businessId);
+            if (!Objects.equals(expected, actual)) {
+                throw new IllegalStateException("Rows of " + table.table() + " differ between the source and the "
+                        + "target (" + expected + " vs " + actual + "); they changed during the move");
+            }
+        }
+        return Collections.unmodifiableMap(copied);
+    }
+
+    private int copyTable(JdbcTemplate source, JdbcTemplate target, int targetShard, TableCopy table,
+            List<String> columns, Long businessId) {
+        String columnList = columns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "));
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        String insert = switch (effectiveOwnership(table, targetShard)) {
+            case BUSINESS -> "INSERT INTO " + table.table() + " (" + columnList + ") VALUES (" + placeholders + ")";
+            case SHARED -> "INSERT IGNORE INTO " + table.table() + " (" + columnList + ") VALUES (" + placeholders + ")";
+            case HOME_COPY, HOME_ANCHORED -> "INSERT INTO " + table.table() + " (" + columnList + ") VALUES ("
+                    + placeholders + ") ON DUPLICATE KEY UPDATE " + columns.stream()
+                    .map(column -> "`" + column + "` = VALUES(`" + column + "`)")
+                    .collect(Collectors.joining(", "));
+        };
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int[] copied = {0};
+        source.query("SELECT " + columnList + " FROM " + table.table() + " WHERE " + table.condition(), rs -> {
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                target.batchUpdate(insert, batch);
+                copied[0] += batch.size();
+                batch.clear();
+            }
+        }, businessId);
+        if (!batch.isEmpty()) {
+            target.batchUpdate(insert, batch);
+            copied[0] += batch.size();
+        }
+        return copied[0];
+    }
+
+    // The live user row at home is never overwritten, so towards home it is only inserted if missing
+    private static Ownership effectiveOwnership(TableCopy table, int targetShard) {
+        if (table.ownership() == Ownership.HOME_ANCHORED && targetShard == ShardDataSources.HOME_SHARD) {
+            return Ownership.SHARED;
+        }
+        return table.ownership();
+    }
+
+    private void deleteFromSource(JdbcTemplate source, int sourceShard, Long businessId) {
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            TableCopy table = TABLES.get(i);
+            boolean keepAtHome = table.ownership() == Ownership.HOME_COPY
+                    || table.ownership() == Ownership.HOME_ANCHORED;
+            boolean keep = table.ownership() == Ownership.SHARED
+                    || (keepAtHome && sourceShard == ShardDataSources.HOME_SHARD);
+            if (!keep) {
+                source.update("DELETE FROM " + table.table() + " WHERE " + table.condition(), businessId);
+            }
+        }
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, TableCopy table, Long businessId) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table.table() + " WHERE " + table.condition(),
+                Long.class, businessId);
+        return count != null ? count : 0;
+    }
+
+    private static String countQuery(TableCopy table) {
+        return "SELECT CAST(COUNT(*) AS CHAR) FROM " + table.table() + " WHERE " + table.condition();
+    }
+
+    // Row count plus the sum of a CRC32 per row; ISNULL tells a NULL apart from the empty string CONCAT_WS makes of it
+    private static String checksumQuery(TableCopy table, List<String> columns) {
+        String row = columns.stream()
+                .map(column -> "ISNULL(`" + column + "`), `" + column + "`")
+                .collect(Collectors.joining(", "));
+        return "SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', " + row + "))), 0)) FROM "
+                + table.table() + " WHERE " + table.condition();
+    }
+
+    // MySQL Connector/J streams rows one at a time only with this fetch size
+    private static JdbcTemplate streamingJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        return jdbcTemplate;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Shard move interrupted", e);
+        }
+    }
+}
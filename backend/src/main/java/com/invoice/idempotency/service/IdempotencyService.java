@@ -0,0 +1,190 @@
+package com.invoice.idempotency.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.idempotency.entity.IdempotencyRecord;
+import com.invoice.idempotency.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes create endpoints safe to retry. The first request with a given Idempotency-Key runs the action and stores
+ * its response; retries with the same key get the stored response back without running the action again.
+ * Recent keys are answered from memory, and concurrent duplicates wait for the single in-flight execution.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final Duration ttl;
+    private final int hotCacheSize;
+
+    private final ConcurrentHashMap<String, StoredResponse> hotResponses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate, ShardDirectory shardDirectory,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.hot-cache-size:10000}") int hotCacheSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.shardDirectory = shardDirectory;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.hotCacheSize = hotCacheSize;
+    }
+
+    public <T> T execute(String idempotencyKey, String scope, Object request, Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        String cacheKey = owner + '\n' + scope + '\n' + idempotencyKey;
+        String requestHash = hash(request);
+
+        StoredResponse hot = hotResponses.get(cacheKey);
+        if (hot != null && hot.expiresAt().isAfter(LocalDateTime.now())) {
+            return replay(hot, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(cacheKey, pending);
+        if (existing != null) {
+            return replay(await(existing), requestHash, responseType);
+        }
+
+        try {
+            StoredResponse stored = findStored(owner, scope, idempotencyKey);
+            if (stored != null) {
+                remember(cacheKey, stored);
+                pending.complete(stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            T response;
+            try {
+                // The record is written in the same transaction as the action, so a duplicate that slipped past
+                // the in-memory layer (e.g. on another node) rolls back on the unique key instead of committing twice
+                response = transactionTemplate.execute(status -> {
+                    T result = action.get();
+                    IdempotencyRecord record = new IdempotencyRecord();
+                    record.setOwner(owner);
+                    record.setScope(scope);
+                    record.setIdempotencyKey(idempotencyKey);
+                    record.setRequestHash(requestHash);
+                    record.setResponseBody(serialize(result));
+                    record.setExpiresAt(LocalDateTime.now().plus(ttl));
+                    recordRepository.save(record);
+                    return result;
+                });
+            } catch (DataIntegrityViolationException e) {
+                stored = findStored(owner, scope, idempotencyKey);
+                if (stored == null) {
+                    throw e;
+                }
+                remember(cacheKey, stored);
+                pending.complete(stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            stored = new StoredResponse(requestHash, serialize(response), LocalDateTime.now().plus(ttl));
+            remember(cacheKey, stored);
+            pending.complete(stored);
+            return response;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, pending);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        hotResponses.values().removeIf(response -> response.expiresAt().isBefore(now));
+        shardDirectory.forEachShard("Idempotency key purge", () -> recordRepository.deleteExpired(now));
+    }
+
+    private StoredResponse findStored(String owner, String scope, String idempotencyKey) {
+        return recordRepository.findByOwnerAndScopeAndIdempotencyKey(owner, scope, idempotencyKey)
+                .filter(record -> record.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(record -> new StoredResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt()))
+                .orElse(null);
+    }
+
+    private void remember(String cacheKey, StoredResponse response) {
+        // Once full, further keys are still served correctly from the table, just without the memory shortcut
+        if (hotResponses.size() < hotCacheSize || hotResponses.containsKey(cacheKey)) {
+            hotResponses.put(cacheKey, response);
+        }
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new ConflictException("Idempotency-Key has already been used with a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.body(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be serialized", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request could not be hashed", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, String body, LocalDateTime expiresAt) {
+    }
+}
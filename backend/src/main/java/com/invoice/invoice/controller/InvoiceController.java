@@ -1,7 +1,10 @@
 package com.invoice.invoice.controller;
 
+import com.invoice.idempotency.service.IdempotencyService;
+import com.invoice.invoice.dto.InvoiceItemResponse;
 import com.invoice.invoice.dto.InvoiceRequest;
 import com.invoice.invoice.dto.InvoiceResponse;
+import com.invoice.invoice.dto.InvoiceSummaryResponse;
 import com.invoice.invoice.service.InvoiceService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -14,14 +17,23 @@ import java.util.List;
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final IdempotencyService idempotencyService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService, IdempotencyService idempotencyService) {
         this.invoiceService = invoiceService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping
-    public ResponseEntity<InvoiceResponse> createInvoice(@Valid @RequestBody InvoiceRequest request) {
-        return ResponseEntity.ok(invoiceService.createInvoice(request));
+    public ResponseEntity<InvoiceResponse> createInvoice(@Valid @RequestBody InvoiceRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "invoices.create", request,
+                InvoiceResponse.class, () -> invoiceService.createInvoice(request)));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<InvoiceSummaryResponse>> getInvoiceSummaries() {
+        return ResponseEntity.ok(invoiceService.getInvoiceSummaries());
     }
 
     @GetMapping("/{id}")
@@ -29,6 +41,11 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.getInvoiceById(id));
     }
 
+    @GetMapping("/{id}/items")
+    public ResponseEntity<List<InvoiceItemResponse>> getInvoiceItems(@PathVariable Long id) {
+        return ResponseEntity.ok(invoiceService.getInvoiceItems(id));
+    }
+
     @GetMapping
     public ResponseEntity<List<InvoiceResponse>> getAllInvoices() {
         return ResponseEntity.ok(invoiceService.getAllInvoices());
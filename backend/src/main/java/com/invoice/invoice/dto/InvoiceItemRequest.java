@@ -2,8 +2,8 @@ package com.invoice.invoice.dto;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -11,24 +11,29 @@ import java.math.BigDecimal;
 @Data
 public class InvoiceItemRequest {
 
-    @NotBlank(message = "Item name is required")
+    // Optional: fills in name, description, HSN code, price and GST rate from the business's catalog
+    private Long catalogItemId;
+
+    // Required unless it comes from the catalog item
     private String itemName;
 
     // Phase 2: Item description
     private String itemDescription;
 
+    @Pattern(regexp = "^[0-9]{2,8}$", message = "HSN/SAC code must be 2 to 8 digits")
+    private String hsnCode;
+
     @NotNull(message = "Quantity is required")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
 
-    @NotNull(message = "Price is required")
     @DecimalMin(value = "0.01", message = "Price must be greater than 0")
     private BigDecimal price;
 
     // Phase 2: Item-level discount
     private BigDecimal discount;
 
-    @NotNull(message = "GST rate is required")
+    // Falls back to the catalog item, then to the bundled rate for the HSN/SAC code
     @DecimalMin(value = "0.00", message = "GST rate must be 0 or greater")
     private BigDecimal gstRate;
 }
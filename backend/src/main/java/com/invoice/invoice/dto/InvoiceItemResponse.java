@@ -14,6 +14,7 @@ public class InvoiceItemResponse {
     private Long id;
     private String itemName;
     private String itemDescription; // Phase 2
+    private String hsnCode;
     private Integer quantity;
     private BigDecimal price;
     private BigDecimal discount; // Phase 2
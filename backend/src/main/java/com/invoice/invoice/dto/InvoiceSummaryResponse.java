@@ -0,0 +1,46 @@
+package com.invoice.invoice.dto;
+
+import com.invoice.invoice.entity.Invoice;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the invoice list: just what list screens show, filled straight from a JPQL constructor expression so
+ * neither {@link Invoice} entities nor their items are loaded. Detail views use {@link InvoiceResponse}.
+ */
+@Data
+@NoArgsConstructor
+public class InvoiceSummaryResponse {
+
+    private Long id;
+    private String invoiceNumber;
+    private Long customerId;
+    private String customerName;
+    private LocalDate invoiceDate;
+    private LocalDate dueDate;
+    private String invoiceType;
+    private BigDecimal totalAmount;
+    private BigDecimal dueAmount;
+    private String status; // DUE, PARTIAL, PAID
+    private LocalDateTime createdAt;
+
+    public InvoiceSummaryResponse(Long id, String invoiceNumber, Long customerId, String customerName,
+            LocalDate invoiceDate, LocalDate dueDate, Invoice.InvoiceType invoiceType, BigDecimal totalAmount,
+            BigDecimal dueAmount, Invoice.InvoiceStatus status, LocalDateTime createdAt) {
+        this.id = id;
+        this.invoiceNumber = invoiceNumber;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.invoiceDate = invoiceDate;
+        this.dueDate = dueDate;
+        this.invoiceType = invoiceType != null ? invoiceType.toString() : null;
+        this.totalAmount = totalAmount;
+        this.dueAmount = dueAmount;
+        this.status = status != null ? status.toString() : null;
+        this.createdAt = createdAt;
+    }
+}
@@ -13,7 +13,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices",
+        indexes = {
+                @Index(name = "idx_invoices_status_due_date", columnList = "status, due_date, id"),
+                // Serves date-range exports, which read a business's invoices in date order
+                @Index(name = "idx_invoices_business_date", columnList = "business_id, invoice_date, id"),
+                // Serves the invoice list, newest first
+                @Index(name = "idx_invoices_business_created", columnList = "business_id, created_at")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,6 +29,9 @@ public class InvoiceItem {
     @Column(name = "item_description", columnDefinition = "TEXT")
     private String itemDescription;
 
+    @Column(name = "hsn_code", length = 8)
+    private String hsnCode;
+
     @Column(nullable = false)
     private Integer quantity;
 
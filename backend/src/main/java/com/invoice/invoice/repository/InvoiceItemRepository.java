@@ -0,0 +1,29 @@
+package com.invoice.invoice.repository;
+
+import com.invoice.catalog.dto.ItemUsage;
+import com.invoice.invoice.dto.InvoiceItemResponse;
+import com.invoice.invoice.entity.InvoiceItem;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
+
+    // One row per distinct item name: how often it was billed and the id of its most recent line. Scans every line
+    // of the business, so it gets the reporting statement timeout
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "120000"))
+    @Query("select new com.invoice.catalog.dto.ItemUsage(max(ii.id), count(ii)) from InvoiceItem ii "
+            + "where ii.invoice.businessId = :businessId group by lower(trim(ii.itemName))")
+    List<ItemUsage> findItemUsage(@Param("businessId") Long businessId);
+
+    @Query("select new com.invoice.invoice.dto.InvoiceItemResponse(ii.id, ii.itemName, ii.itemDescription, "
+            + "ii.hsnCode, ii.quantity, ii.price, ii.discount, ii.gstRate, ii.lineTotal) from InvoiceItem ii "
+            + "where ii.invoice.id = :invoiceId order by ii.id")
+    List<InvoiceItemResponse> findResponsesByInvoiceId(@Param("invoiceId") Long invoiceId);
+}
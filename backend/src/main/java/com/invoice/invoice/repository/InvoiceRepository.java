@@ -1,15 +1,49 @@
 package com.invoice.invoice.repository;
 
+import com.invoice.invoice.dto.InvoiceSummaryResponse;
 import com.invoice.invoice.entity.Invoice;
+import com.invoice.reminder.dto.OverdueInvoice;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     List<Invoice> findByBusinessIdOrderByCreatedAtDesc(Long businessId);
 
+    // List rows without entities or items; the customer name comes from the same query instead of one lookup per row
+    @Query("select new com.invoice.invoice.dto.InvoiceSummaryResponse(i.id, i.invoiceNumber, i.customerId, c.name, "
+            + "i.invoiceDate, i.dueDate, i.invoiceType, i.totalAmount, i.dueAmount, i.status, i.createdAt) "
+            + "from Invoice i left join Customer c on c.id = i.customerId "
+            + "where i.businessId = :businessId order by i.createdAt desc")
+    List<InvoiceSummaryResponse> findSummariesByBusinessId(@Param("businessId") Long businessId);
+
+    @Query("select i.businessId from Invoice i where i.id = :id")
+    Optional<Long> findBusinessIdById(@Param("id") Long id);
+
     boolean existsByInvoiceNumber(String invoiceNumber);
+
+    // One query for a whole business, used to (re)build its search index; allowed the reporting statement timeout
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "120000"))
+    @Query("select distinct i from Invoice i left join fetch i.items where i.businessId = :businessId")
+    List<Invoice> findWithItemsByBusinessId(@Param("businessId") Long businessId);
+
+    // Keyset walk over idx_invoices_status_due_date, resuming after (afterDueDate, afterId)
+    @Query("select new com.invoice.reminder.dto.OverdueInvoice(i.id, i.businessId, i.customerId, i.invoiceNumber, "
+            + "i.dueDate, i.dueAmount) from Invoice i "
+            + "where i.status = :status and i.dueDate < :today "
+            + "and (i.dueDate > :afterDueDate or (i.dueDate = :afterDueDate and i.id > :afterId)) "
+            + "order by i.dueDate, i.id")
+    List<OverdueInvoice> findOverdueAfter(@Param("status") Invoice.InvoiceStatus status,
+            @Param("today") LocalDate today, @Param("afterDueDate") LocalDate afterDueDate,
+            @Param("afterId") Long afterId, Pageable pageable);
 }
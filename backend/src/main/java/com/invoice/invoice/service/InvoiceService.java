@@ -4,12 +4,21 @@ import com.invoice.auth.entity.User;
 import com.invoice.auth.repository.UserRepository;
 import com.invoice.business.entity.Business;
 import com.invoice.business.repository.BusinessRepository;
+import com.invoice.catalog.service.CatalogService;
+import com.invoice.common.SingleFlight;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
 import com.invoice.customer.entity.Customer;
 import com.invoice.customer.repository.CustomerRepository;
 import com.invoice.invoice.dto.*;
 import com.invoice.invoice.entity.Invoice;
 import com.invoice.invoice.entity.InvoiceItem;
+import com.invoice.invoice.repository.InvoiceItemRepository;
 import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.live.service.LiveEventHub;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxService;
+import com.invoice.search.service.InvoiceSearchIndex;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,22 +28,40 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class InvoiceService {
 
+    // Single-flight name for the invoice list; writers that change an invoice invalidate it per business
+    public static final String INVOICE_LIST_FLIGHT = "invoices.list";
+
     private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
     private final BusinessRepository businessRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
-
-    public InvoiceService(InvoiceRepository invoiceRepository, BusinessRepository businessRepository,
-            CustomerRepository customerRepository, UserRepository userRepository) {
+    private final OutboxService outboxService;
+    private final InvoiceSearchIndex searchIndex;
+    private final CatalogService catalogService;
+    private final LiveEventHub liveEventHub;
+    private final SingleFlight singleFlight;
+
+    public InvoiceService(InvoiceRepository invoiceRepository, InvoiceItemRepository invoiceItemRepository,
+            BusinessRepository businessRepository, CustomerRepository customerRepository,
+            UserRepository userRepository, OutboxService outboxService, InvoiceSearchIndex searchIndex,
+            CatalogService catalogService, LiveEventHub liveEventHub, SingleFlight singleFlight) {
         this.invoiceRepository = invoiceRepository;
+        this.invoiceItemRepository = invoiceItemRepository;
         this.businessRepository = businessRepository;
         this.customerRepository = customerRepository;
         this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.searchIndex = searchIndex;
+        this.catalogService = catalogService;
+        this.liveEventHub = liveEventHub;
+        this.singleFlight = singleFlight;
     }
 
     @Transactional
@@ -45,21 +72,40 @@ public class InvoiceService {
         Customer customer = null;
         if (request.getCustomerId() != null) {
             customer = customerRepository.findById(request.getCustomerId())
-                    .orElseThrow(() -> new RuntimeException("Customer not found"));
+                    .orElseThrow(() -> new NotFoundException("Customer not found"));
 
             if (!customer.getBusinessId().equals(business.getId())) {
-                throw new RuntimeException("Unauthorized access to customer");
+                throw new ForbiddenException("Unauthorized access to customer");
             }
         }
 
+        Invoice invoice = buildInvoice(business, customer, request);
+        invoice.setInvoiceNumber(generateInvoiceNumber());
+
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+
+        InvoiceResponse response = convertToResponse(savedInvoice);
+        outboxService.record(OutboxEvent.AggregateType.INVOICE, savedInvoice.getId(), business.getId(),
+                OutboxEvent.EventType.INVOICE_CREATED, response);
+        searchIndex.indexAfterCommit(savedInvoice, customer);
+        liveEventHub.publishAfterCommit(business.getId(), "invoice.created", response);
+        singleFlight.invalidateAfterCommit(INVOICE_LIST_FLIGHT, business.getId());
+
+        return response;
+    }
+
+    /**
+     * Builds an unsaved invoice with its items and totals calculated, leaving the invoice number to the caller.
+     * Recurring invoice generation uses this too, so both paths apply the same GST rules.
+     */
+    public Invoice buildInvoice(Business business, Customer customer, InvoiceRequest request) {
         // Determine invoice type
         Invoice.InvoiceType invoiceType = determineInvoiceType(business, customer);
 
         // Create invoice
         Invoice invoice = new Invoice();
-        invoice.setInvoiceNumber(generateInvoiceNumber());
         invoice.setBusinessId(business.getId());
-        invoice.setCustomerId(request.getCustomerId());
+        invoice.setCustomerId(customer != null ? customer.getId() : null);
         invoice.setInvoiceType(invoiceType);
 
         // Phase 2 fields
@@ -75,7 +121,8 @@ public class InvoiceService {
         BigDecimal totalGst = BigDecimal.ZERO;
         BigDecimal itemDiscountTotal = BigDecimal.ZERO;
 
-        for (InvoiceItemRequest itemReq : request.getItems()) {
+        List<InvoiceItemRequest> items = catalogService.resolveItems(business.getId(), request.getItems());
+        for (InvoiceItemRequest itemReq : items) {
             BigDecimal itemTotal = itemReq.getPrice()
                     .multiply(BigDecimal.valueOf(itemReq.getQuantity()))
                     .setScale(2, RoundingMode.HALF_UP);
@@ -119,15 +166,13 @@ public class InvoiceService {
         invoice.setDueAmount(totalAmount);
         invoice.setStatus(Invoice.InvoiceStatus.DUE);
 
-        // Save invoice
-        Invoice savedInvoice = invoiceRepository.save(invoice);
-
         // Create invoice items with Phase 2 fields
-        for (InvoiceItemRequest itemReq : request.getItems()) {
+        for (InvoiceItemRequest itemReq : items) {
             InvoiceItem item = new InvoiceItem();
-            item.setInvoice(savedInvoice);
+            item.setInvoice(invoice);
             item.setItemName(itemReq.getItemName());
             item.setItemDescription(itemReq.getItemDescription());
+            item.setHsnCode(itemReq.getHsnCode());
             item.setQuantity(itemReq.getQuantity());
             item.setPrice(itemReq.getPrice());
             item.setDiscount(itemReq.getDiscount() != null ? itemReq.getDiscount() : BigDecimal.ZERO);
@@ -136,56 +181,87 @@ public class InvoiceService {
             // Calculate line total using the helper method
             item.calculateLineTotal();
 
-            savedInvoice.getItems().add(item);
+            invoice.getItems().add(item);
         }
 
-        savedInvoice = invoiceRepository.save(savedInvoice);
-
-        return convertToResponse(savedInvoice);
+        return invoice;
     }
 
+    @Transactional(readOnly = true)
     public InvoiceResponse getInvoiceById(Long invoiceId) {
         Business business = getBusinessForCurrentUser();
 
         Invoice invoice = invoiceRepository.findById(invoiceId)
-                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
 
         if (!invoice.getBusinessId().equals(business.getId())) {
-            throw new RuntimeException("Unauthorized access to invoice");
+            throw new ForbiddenException("Unauthorized access to invoice");
         }
 
         return convertToResponse(invoice);
     }
 
+    @Transactional(readOnly = true)
     public List<InvoiceResponse> getAllInvoices() {
         Business business = getBusinessForCurrentUser();
 
-        return invoiceRepository.findByBusinessIdOrderByCreatedAtDesc(business.getId())
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        // Dashboards fire this from many tabs at once; concurrent calls for a business share one query
+        return singleFlight.execute(INVOICE_LIST_FLIGHT, business.getId(), () ->
+                invoiceRepository.findByBusinessIdOrderByCreatedAtDesc(business.getId())
+                        .stream()
+                        .map(this::convertToResponse)
+                        .collect(Collectors.toList()));
     }
 
+    // One narrow query per list; no Invoice entities, items or per-row customer lookups
+    @Transactional(readOnly = true)
+    public List<InvoiceSummaryResponse> getInvoiceSummaries() {
+        Business business = getBusinessForCurrentUser();
+        return invoiceRepository.findSummariesByBusinessId(business.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<InvoiceItemResponse> getInvoiceItems(Long invoiceId) {
+        Business business = getBusinessForCurrentUser();
+
+        Long ownerId = invoiceRepository.findBusinessIdById(invoiceId)
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
+
+        if (!ownerId.equals(business.getId())) {
+            throw new ForbiddenException("Unauthorized access to invoice");
+        }
+
+        return invoiceItemRepository.findResponsesByInvoiceId(invoiceId);
+    }
+
+    @Transactional
     public void deleteInvoice(Long invoiceId) {
         Business business = getBusinessForCurrentUser();
 
         Invoice invoice = invoiceRepository.findById(invoiceId)
-                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
 
         if (!invoice.getBusinessId().equals(business.getId())) {
-            throw new RuntimeException("Unauthorized access to invoice");
+            throw new ForbiddenException("Unauthorized access to invoice");
         }
 
         invoiceRepository.delete(invoice);
+        Map<String, Object> deleted = Map.of("id", invoice.getId(), "invoiceNumber", invoice.getInvoiceNumber());
+        outboxService.record(OutboxEvent.AggregateType.INVOICE, invoice.getId(), business.getId(),
+                OutboxEvent.EventType.INVOICE_DELETED, deleted);
+        searchIndex.removeAfterCommit(business.getId(), invoice.getId());
+        liveEventHub.publishAfterCommit(business.getId(), "invoice.deleted", deleted);
+        singleFlight.invalidateAfterCommit(INVOICE_LIST_FLIGHT, business.getId());
     }
 
     private Business getBusinessForCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
         return businessRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Business not found. Please create a business profile first."));
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
     }
 
     private Invoice.InvoiceType determineInvoiceType(Business business, Customer customer) {
@@ -217,12 +293,13 @@ public class InvoiceService {
         return finalInvoiceNumber;
     }
 
-    private InvoiceResponse convertToResponse(Invoice invoice) {
+    public InvoiceResponse convertToResponse(Invoice invoice) {
         List<InvoiceItemResponse> itemResponses = invoice.getItems().stream()
                 .map(item -> new InvoiceItemResponse(
                 item.getId(),
                 item.getItemName(),
                 item.getItemDescription(),
+                item.getHsnCode(),
                 item.getQuantity(),
                 item.getPrice(),
                 item.getDiscount(),
@@ -0,0 +1,30 @@
+package com.invoice.live.controller;
+
+import com.invoice.live.service.LiveEventService;
+import com.invoice.security.JwtAuthenticationFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveEventController {
+
+    private final LiveEventService liveEventService;
+
+    public LiveEventController(LiveEventService liveEventService) {
+        this.liveEventService = liveEventService;
+    }
+
+    // EventSource cannot send headers, so this endpoint also accepts the JWT as ?token=. The stream ends when
+    // that token expires or its session is revoked
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(HttpServletRequest request) {
+        return liveEventService.subscribe(
+                (String) request.getAttribute(JwtAuthenticationFilter.TOKEN_FAMILY_ATTRIBUTE),
+                (Long) request.getAttribute(JwtAuthenticationFilter.TOKEN_EXPIRES_AT_ATTRIBUTE));
+    }
+}
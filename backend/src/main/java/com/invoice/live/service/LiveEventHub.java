@@ -0,0 +1,276 @@
+package com.invoice.live.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.common.AfterCommit;
+import com.invoice.security.TokenFamilyRevokedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans invoice and payment changes out to Server-Sent Event subscribers of the same business. Publishing only offers
+ * to each subscriber's bounded queue and never blocks. A subscriber with queued frames is drained by a small pool of
+ * platform threads, at most one thread per subscriber at a time; the servlet request stays in async mode, so idle
+ * connections hold no thread at all. Emitter writes are synchronized blocking I/O, which would pin virtual threads to
+ * their carriers, hence platform threads. A write to a client that stopped reading gives up after the connector's
+ * {@code server.tomcat.connection-timeout}.
+ *
+ * <p>A subscriber that falls behind loses its queued events and receives a single {@code resync} event instead; the
+ * client then catches up through the change feed. A stream ends with an {@code expired} event when the token it was
+ * opened with expires, and ends at once when that token's session is revoked on this node. Subscriptions are per
+ * node, like the other in-memory state.
+ */
+@Slf4j
+@Component
+public class LiveEventHub {
+
+    private static final Frame CONNECTED = new Frame("connected", "{}");
+    private static final Frame RESYNC = new Frame("resync", "{}");
+    private static final Frame EXPIRED = new Frame("expired", "{}");
+    // Sent as an SSE comment, not an event
+    private static final Frame HEARTBEAT = new Frame(null, null);
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService timer;
+    private final Map<Long, Set<Subscriber>> subscribersByBusiness = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter resyncs;
+
+    public LiveEventHub(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${live.subscriber-buffer:256}") int bufferSize,
+            @Value("${live.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${live.sender-threads:4}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        // Unbounded, but a subscriber is never queued twice, so it holds at most one task per subscriber
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("live-sender-", 1).factory());
+        new ExecutorServiceMetrics(senders, "live-sender", Tags.empty()).bindTo(meterRegistry);
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("live-timer").factory());
+        this.timer.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        this.resyncs = Counter.builder("live.subscriber.resyncs")
+                .description("Events dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("live.subscribers", subscriberCount);
+    }
+
+    private record Frame(String name, String json) {
+    }
+
+    /**
+     * @param tokenFamilyId  session of the token the stream was opened with; revoking it ends the stream
+     * @param tokenExpiresAt when that token expires, in epoch milliseconds; the stream ends then
+     */
+    public SseEmitter subscribe(Long businessId, String tokenFamilyId, Long tokenExpiresAt) {
+        // No async timeout: the connection lives until the client leaves, a write fails or the token runs out
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(businessId, tokenFamilyId, emitter,
+                new ArrayBlockingQueue<>(bufferSize));
+
+        subscribersByBusiness.computeIfAbsent(businessId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        if (tokenExpiresAt != null) {
+            long remainingMs = Math.max(0, tokenExpiresAt - System.currentTimeMillis());
+            subscriber.expiry = timer.schedule(() -> end(subscriber, EXPIRED), remainingMs, TimeUnit.MILLISECONDS);
+        }
+        subscriber.offer(CONNECTED);
+        return emitter;
+    }
+
+    /**
+     * Publishes once the surrounding transaction commits, so subscribers never see a change that was rolled back.
+     */
+    public void publishAfterCommit(Long businessId, String eventName, Object payload) {
+        AfterCommit.run(() -> publish(businessId, eventName, payload));
+    }
+
+    @EventListener
+    public void onTokenFamilyRevoked(TokenFamilyRevokedEvent event) {
+        for (Set<Subscriber> subscribers : subscribersByBusiness.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (event.familyId().equals(subscriber.tokenFamilyId)) {
+                    end(subscriber, null);
+                }
+            }
+        }
+    }
+
+    private void publish(Long businessId, String eventName, Object payload) {
+        Set<Subscriber> subscribers = subscribersByBusiness.get(businessId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        // Serialized once, however many subscribers receive it
+        Frame frame;
+        try {
+            frame = new Frame(eventName, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            log.error("Live event {} could not be serialized", eventName, e);
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    // Keeps proxies from closing idle streams and detects clients that went away; busy streams need none
+    private void heartbeat() {
+        for (Set<Subscriber> subscribers : subscribersByBusiness.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.queue.isEmpty()) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame frame;
+            while (!subscriber.closed && (frame = subscriber.queue.poll()) != null) {
+                send(subscriber, frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected; the container reports the failed write through onError
+            log.debug("Live subscriber for business {} disconnected: {}", subscriber.businessId, e.toString());
+            unsubscribe(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A frame offered after the last poll, while this drain still held the flag, has nobody else to send it
+        if (!subscriber.closed && !subscriber.queue.isEmpty()) {
+            subscriber.scheduleDrain();
+        }
+    }
+
+    private static void send(Subscriber subscriber, Frame frame) throws IOException {
+        if (frame == HEARTBEAT) {
+            subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+        } else {
+            subscriber.emitter.send(SseEmitter.event().name(frame.name()).data(frame.json()));
+        }
+    }
+
+    // Ends a stream from the server side, after an optional last frame; the write happens on a sender thread
+    private void end(Subscriber subscriber, Frame last) {
+        if (!unsubscribe(subscriber)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                try {
+                    if (last != null) {
+                        send(subscriber, last);
+                    }
+                    subscriber.emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Live stream for business {} already closed: {}", subscriber.businessId, e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the container closes the connection
+        }
+    }
+
+    private boolean unsubscribe(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return false;
+        }
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return false;
+            }
+            subscriber.closed = true;
+        }
+        subscriberCount.decrementAndGet();
+        subscribersByBusiness.computeIfPresent(subscriber.businessId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        ScheduledFuture<?> expiry = subscriber.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final Long businessId;
+        private final String tokenFamilyId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue;
+        // Set while a drain is queued or running, so one subscriber never has two senders
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile ScheduledFuture<?> expiry;
+
+        private Subscriber(Long businessId, String tokenFamilyId, SseEmitter emitter, BlockingQueue<Frame> queue) {
+            this.businessId = businessId;
+            this.tokenFamilyId = tokenFamilyId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        private void offer(Frame frame) {
+            if (!queue.offer(frame)) {
+                // Too slow to keep up: whatever is queued is stale now, so replace it with one resync marker
+                resyncs.increment();
+                queue.clear();
+                while (!queue.offer(RESYNC)) {
+                    queue.poll();
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(() -> drain(this));
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+}
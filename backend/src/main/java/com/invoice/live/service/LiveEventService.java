@@ -0,0 +1,41 @@
+package com.invoice.live.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.NotFoundException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Service
+public class LiveEventService {
+
+    private final LiveEventHub liveEventHub;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+
+    public LiveEventService(LiveEventHub liveEventHub, BusinessRepository businessRepository,
+            UserRepository userRepository) {
+        this.liveEventHub = liveEventHub;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+    }
+
+    public SseEmitter subscribe(String tokenFamilyId, Long tokenExpiresAt) {
+        return liveEventHub.subscribe(getBusinessIdForCurrentUser(), tokenFamilyId, tokenExpiresAt);
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
@@ -0,0 +1,85 @@
+package com.invoice.outbox.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events",
+        indexes = {
+                @Index(name = "idx_outbox_pending", columnList = "dispatched_at, id"),
+                // Lets the relay check whether an earlier event of the same aggregate is still backing off
+                @Index(name = "idx_outbox_aggregate", columnList = "aggregate_type, aggregate_id, id"),
+                // Serves the per-business change feed, which walks a business's events in id order
+                @Index(name = "idx_outbox_business_feed", columnList = "business_id, id"),
+                @Index(name = "idx_outbox_lease_owner", columnList = "lease_owner")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Events of the same aggregate are dispatched in id order
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    @Enumerated(EnumType.STRING)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    @Enumerated(EnumType.STRING)
+    private EventType eventType;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    // Database clock, so events written by different nodes compare against one clock in the change feed
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Set once the event has failed outbox.max-attempts times; it is no longer relayed
+    @Column(name = "dead_lettered_at")
+    private LocalDateTime deadLetteredAt;
+
+    // Claimed by one relay run at a time; a lease left behind by a crashed node runs out at lease_until
+    @Column(name = "lease_owner", length = 36)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public enum AggregateType {
+        INVOICE, CUSTOMER
+    }
+
+    public enum EventType {
+        INVOICE_CREATED, INVOICE_DELETED, INVOICE_PAID, INVOICE_OVERDUE, PAYMENT_ADDED, PAYMENT_DELETED,
+        CUSTOMER_CREATED
+    }
+}
@@ -0,0 +1,77 @@
+package com.invoice.outbox.repository;
+
+import com.invoice.outbox.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Pending events that are due and unclaimed, skipping any whose aggregate has an earlier event still waiting out
+    // its backoff or claimed by another relay, so a failing event holds back only its own aggregate and never the
+    // head of the queue, and an aggregate is only ever relayed by one node at a time. Businesses being moved are
+    // excluded; the list must not be empty. Rows are (id, business id, created at)
+    @Query("select e.id, e.businessId, e.createdAt from OutboxEvent e where e.dispatchedAt is null "
+            + "and e.deadLetteredAt is null and (e.nextAttemptAt is null or e.nextAttemptAt <= :now) "
+            + "and (e.leaseUntil is null or e.leaseUntil <= :now) and e.businessId not in :excluded "
+            + "and not exists (select p.id from OutboxEvent p where p.aggregateType = e.aggregateType "
+            + "and p.aggregateId = e.aggregateId and p.id < e.id and p.dispatchedAt is null "
+            + "and p.deadLetteredAt is null and (p.nextAttemptAt > :now or p.leaseUntil > :now)) "
+            + "order by e.id")
+    List<Object[]> findDue(@Param("now") LocalDateTime now, @Param("excluded") Collection<Long> excluded,
+            Pageable pageable);
+
+    // Claims the selected events; rows another relay claimed in the meantime are not updated. The statement locks
+    // rows in id order, so two relays racing for one aggregate cannot each win part of it out of order
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.leaseOwner = :owner, e.leaseUntil = :leaseUntil where e.id in :ids "
+            + "and e.dispatchedAt is null and (e.leaseUntil is null or e.leaseUntil <= :now)")
+    int lease(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil, @Param("owner") String owner);
+
+    List<OutboxEvent> findByLeaseOwnerOrderById(String leaseOwner);
+
+    // Hands back what a relay run claimed but did not dispatch, such as the rest of an aggregate after a failure
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.leaseOwner = null, e.leaseUntil = null where e.leaseOwner = :owner")
+    int release(@Param("owner") String owner);
+
+    // Keyset page over idx_outbox_business_feed
+    List<OutboxEvent> findByBusinessIdAndIdGreaterThanOrderByIdAsc(Long businessId, Long afterId, Pageable pageable);
+
+    @Query("select local datetime")
+    LocalDateTime databaseNow();
+
+    @Query("select max(e.id) from OutboxEvent e where e.businessId = :businessId and e.createdAt <= :createdBefore")
+    Long findLatestId(@Param("businessId") Long businessId, @Param("createdBefore") LocalDateTime createdBefore);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.dispatchedAt = :dispatchedAt where e.id = :id")
+    int markDispatched(@Param("id") Long id, @Param("dispatchedAt") LocalDateTime dispatchedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error, "
+            + "e.nextAttemptAt = :nextAttemptAt where e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error, "
+            + "e.deadLetteredAt = :deadLetteredAt where e.id = :id")
+    int markDeadLettered(@Param("id") Long id, @Param("error") String error,
+            @Param("deadLetteredAt") LocalDateTime deadLetteredAt);
+}
@@ -0,0 +1,28 @@
+package com.invoice.outbox.service;
+
+import com.invoice.outbox.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process handler that republishes every outbox event as a Spring application event, so local listeners can
+ * react with {@code @EventListener OutboxEvent} without talking to an external broker.
+ */
+@Slf4j
+@Component
+public class LocalOutboxEventHandler implements OutboxEventHandler {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocalOutboxEventHandler(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        log.debug("Dispatching outbox event {} {} for {} {}", event.getId(), event.getEventType(),
+                event.getAggregateType(), event.getAggregateId());
+        eventPublisher.publishEvent(event);
+    }
+}
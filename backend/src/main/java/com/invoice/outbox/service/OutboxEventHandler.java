@@ -0,0 +1,16 @@
+package com.invoice.outbox.service;
+
+import com.invoice.outbox.entity.OutboxEvent;
+
+/**
+ * Receives committed outbox events from {@link OutboxRelay}. Delivery is at-least-once, so implementations must
+ * tolerate seeing the same event more than once.
+ */
+public interface OutboxEventHandler {
+
+    default boolean supports(OutboxEvent.EventType eventType) {
+        return true;
+    }
+
+    void handle(OutboxEvent event) throws Exception;
+}
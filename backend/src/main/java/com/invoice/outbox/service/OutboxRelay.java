@@ -0,0 +1,174 @@
+package com.invoice.outbox.service;
+
+import com.invoice.datasource.ShardContext;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls committed outbox events in batches and hands them to every {@link OutboxEventHandler}. Each batch is leased
+ * to the relay run that claimed it, so nodes relay different events, and an aggregate with a claimed event is left
+ * to that claim. Each aggregate's events run sequentially on their own virtual thread; a failure stops that
+ * aggregate until its retry is due, so handlers never see an aggregate's events out of order. After
+ * {@code outbox.max-attempts} failures an event is dead-lettered and its aggregate moves on.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final ShardDirectory shardDirectory;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+    private final Timer dispatchLag;
+    private final Counter dispatchFailures;
+    private final Counter deadLetters;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, List<OutboxEventHandler> handlers,
+            ShardDirectory shardDirectory, MeterRegistry meterRegistry, @Value("${outbox.batch-size:200}") int batchSize,
+            @Value("${outbox.max-attempts:12}") int maxAttempts, @Value("${outbox.lease-ms:60000}") long leaseMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.shardDirectory = shardDirectory;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        this.dispatchLag = Timer.builder("outbox.dispatch.lag")
+                .description("Time from commit of an outbox event to its successful dispatch")
+                .register(meterRegistry);
+        this.dispatchFailures = Counter.builder("outbox.dispatch.failures").register(meterRegistry);
+        this.deadLetters = Counter.builder("outbox.dead.letters").register(meterRegistry);
+        meterRegistry.gauge("outbox.pending.oldest.age.ms", oldestPendingAgeMs);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void relay() {
+        AtomicLong oldestAgeMs = new AtomicLong();
+        shardDirectory.forEachShard("Outbox relay", () -> oldestAgeMs.accumulateAndGet(relayShard(), Math::max));
+        oldestPendingAgeMs.set(oldestAgeMs.get());
+    }
+
+    // Relays one batch from the current shard and returns the age of its oldest pending event
+    private long relayShard() {
+        LocalDateTime now = LocalDateTime.now();
+        // NOT IN () is not valid SQL; 0 is never a business id
+        Set<Long> frozen = shardDirectory.frozenBusinessIds();
+        List<Object[]> due = outboxEventRepository.findDue(now, frozen.isEmpty() ? List.of(0L) : frozen,
+                PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        long oldestAgeMs = Duration.between((LocalDateTime) due.get(0)[2], now).toMillis();
+
+        // Events of a business that lives on another shard now stay for that shard's relay
+        List<Long> ids = due.stream()
+                .filter(row -> shardDirectory.isServedHere((Long) row[1]))
+                .map(row -> (Long) row[0])
+                .toList();
+        String owner = UUID.randomUUID().toString();
+        if (ids.isEmpty() || outboxEventRepository.lease(ids, now, now.plusNanos(leaseMs * 1_000_000), owner) == 0) {
+            return oldestAgeMs;
+        }
+        try {
+            dispatch(outboxEventRepository.findByLeaseOwnerOrderById(owner));
+        } finally {
+            outboxEventRepository.release(owner);
+        }
+        return oldestAgeMs;
+    }
+
+    private void dispatch(List<OutboxEvent> batch) {
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byAggregate.computeIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(), k -> new ArrayList<>())
+                    .add(event);
+        }
+
+        List<Future<?>> running = new ArrayList<>(byAggregate.size());
+        for (List<OutboxEvent> events : byAggregate.values()) {
+            running.add(workers.submit(ShardContext.wrap(() -> {
+                dispatchInOrder(events);
+                return null;
+            })));
+        }
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Outbox worker failed", e.getCause());
+            }
+        }
+    }
+
+    private void dispatchInOrder(List<OutboxEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : events) {
+            if (event.getNextAttemptAt() != null && event.getNextAttemptAt().isAfter(now)) {
+                return;
+            }
+            try {
+                for (OutboxEventHandler handler : handlers) {
+                    if (handler.supports(event.getEventType())) {
+                        handler.handle(event);
+                    }
+                }
+            } catch (Exception e) {
+                dispatchFailures.increment();
+                String error = String.valueOf(e);
+                error = error.length() > 500 ? error.substring(0, 500) : error;
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    deadLetters.increment();
+                    outboxEventRepository.markDeadLettered(event.getId(), error, LocalDateTime.now());
+                    log.error("Outbox event {} failed {} times, dead-lettered", event.getId(), maxAttempts, e);
+                    continue;
+                }
+                long backoff = Math.min(1L << Math.min(event.getAttempts(), 16), MAX_BACKOFF_SECONDS);
+                outboxEventRepository.markFailed(event.getId(), error, LocalDateTime.now().plusSeconds(backoff));
+                log.warn("Outbox event {} failed (attempt {}), retrying in {}s", event.getId(),
+                        event.getAttempts() + 1, backoff, e);
+                return;
+            }
+            LocalDateTime dispatchedAt = LocalDateTime.now();
+            outboxEventRepository.markDispatched(event.getId(), dispatchedAt);
+            dispatchLag.record(Duration.between(event.getCreatedAt(), dispatchedAt));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
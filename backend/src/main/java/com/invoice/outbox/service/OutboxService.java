@@ -0,0 +1,113 @@
+package com.invoice.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class OutboxService {
+
+    private static final String INSERT_EVENTS = "INSERT INTO outbox_events "
+            + "(aggregate_type, aggregate_id, business_id, event_type, payload, created_at, attempts) VALUES ";
+    private static final Object COMMIT_DEADLINE = new Object();
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxCommitDelayNanos;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate, @Value("${outbox.max-commit-delay-ms:3000}") long maxCommitDelayMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxCommitDelayNanos = maxCommitDelayMs * 1_000_000;
+    }
+
+    public record NewEvent(OutboxEvent.AggregateType aggregateType, Long aggregateId, Long businessId,
+            OutboxEvent.EventType eventType, Object payload) {
+    }
+
+    // Must join the caller's transaction so the event commits or rolls back together with the change it describes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.AggregateType aggregateType, Long aggregateId, Long businessId,
+            OutboxEvent.EventType eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setBusinessId(businessId);
+        event.setEventType(eventType);
+        event.setPayload(serialize(payload));
+        startCommitDeadline();
+        outboxEventRepository.save(event);
+    }
+
+    // For bulk producers: one multi-row INSERT instead of an IDENTITY round trip per event
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<NewEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_EVENTS);
+        List<Object> args = new ArrayList<>(events.size() * 5);
+        for (NewEvent event : events) {
+            // Database clock, like the entity's created_at; the change feed compares it with the database's now
+            sql.append(args.isEmpty() ? "" : ",").append("(?, ?, ?, ?, ?, CURRENT_TIMESTAMP(6), 0)");
+            args.add(event.aggregateType().name());
+            args.add(event.aggregateId());
+            args.add(event.businessId());
+            args.add(event.eventType().name());
+            args.add(serialize(event.payload()));
+        }
+        startCommitDeadline();
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /*
+     * An event's id is taken when it is inserted but only becomes visible when its transaction commits. The change
+     * feed moves past ids older than sync.commit-grace-ms, so a transaction that commits its first event later than
+     * that would slip an event behind clients' cursors. Such a transaction is rolled back instead; the limit stays
+     * below the grace to leave room for the commit itself.
+     */
+    private void startCommitDeadline() {
+        if (TransactionSynchronizationManager.hasResource(COMMIT_DEADLINE)) {
+            return;
+        }
+        long deadline = System.nanoTime() + maxCommitDelayNanos;
+        TransactionSynchronizationManager.bindResource(COMMIT_DEADLINE, deadline);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new ConflictException("The change took too long to commit and was rolled back. "
+                            + "Please try again.");
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(COMMIT_DEADLINE);
+            }
+        });
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload could not be serialized", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.invoice.payment.controller;
 
+import com.invoice.idempotency.service.IdempotencyService;
 import com.invoice.payment.dto.PaymentRequest;
 import com.invoice.payment.dto.PaymentResponse;
 import com.invoice.payment.service.PaymentService;
@@ -16,10 +17,13 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
-    public ResponseEntity<PaymentResponse> addPayment(@RequestBody PaymentRequest request) {
-        PaymentResponse response = paymentService.addPayment(request);
+    public ResponseEntity<PaymentResponse> addPayment(@RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        PaymentResponse response = idempotencyService.execute(idempotencyKey, "payments.create", request,
+                PaymentResponse.class, () -> paymentService.addPayment(request));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
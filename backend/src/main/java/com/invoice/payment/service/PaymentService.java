@@ -1,7 +1,13 @@
 package com.invoice.payment.service;
 
+import com.invoice.common.SingleFlight;
+import com.invoice.common.exception.NotFoundException;
 import com.invoice.invoice.entity.Invoice;
 import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.invoice.service.InvoiceService;
+import com.invoice.live.service.LiveEventHub;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxService;
 import com.invoice.payment.dto.PaymentRequest;
 import com.invoice.payment.dto.PaymentResponse;
 import com.invoice.payment.entity.Payment;
@@ -12,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,12 +27,15 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final InvoiceRepository invoiceRepository;
+    private final OutboxService outboxService;
+    private final LiveEventHub liveEventHub;
+    private final SingleFlight singleFlight;
 
     @Transactional
     public PaymentResponse addPayment(PaymentRequest request) {
         // Validate invoice exists
         Invoice invoice = invoiceRepository.findById(request.getInvoiceId())
-                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
 
         // Create payment
         Payment payment = new Payment();
@@ -42,9 +52,15 @@ public class PaymentService {
         // Update invoice paid amount and status
         updateInvoicePaymentStatus(invoice);
 
-        return mapToResponse(savedPayment);
+        PaymentResponse response = mapToResponse(savedPayment);
+        outboxService.record(OutboxEvent.AggregateType.INVOICE, invoice.getId(), invoice.getBusinessId(),
+                OutboxEvent.EventType.PAYMENT_ADDED, response);
+        liveEventHub.publishAfterCommit(invoice.getBusinessId(), "payment.added", response);
+
+        return response;
     }
 
+    @Transactional(readOnly = true)
     public List<PaymentResponse> getPaymentsByInvoice(Long invoiceId) {
         return paymentRepository.findByInvoiceIdOrderByPaymentDateDesc(invoiceId)
                 .stream()
@@ -52,24 +68,30 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public PaymentResponse getPaymentById(Long id) {
         Payment payment = paymentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
+                .orElseThrow(() -> new NotFoundException("Payment not found"));
         return mapToResponse(payment);
     }
 
     @Transactional
     public void deletePayment(Long id) {
         Payment payment = paymentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
+                .orElseThrow(() -> new NotFoundException("Payment not found"));
 
         Long invoiceId = payment.getInvoiceId();
         paymentRepository.delete(payment);
 
         // Update invoice status after payment deletion
         Invoice invoice = invoiceRepository.findById(invoiceId)
-                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
         updateInvoicePaymentStatus(invoice);
+
+        Map<String, Object> deleted = Map.of("id", id, "invoiceId", invoiceId);
+        outboxService.record(OutboxEvent.AggregateType.INVOICE, invoiceId, invoice.getBusinessId(),
+                OutboxEvent.EventType.PAYMENT_DELETED, deleted);
+        liveEventHub.publishAfterCommit(invoice.getBusinessId(), "payment.deleted", deleted);
     }
 
     private void updateInvoicePaymentStatus(Invoice invoice) {
@@ -79,9 +101,20 @@ public class PaymentService {
                 .map(Payment::getAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
+        Invoice.InvoiceStatus previousStatus = invoice.getStatus();
         invoice.setPaidAmount(totalPaid);
         invoice.updateStatus(); // This will set status and dueAmount
         invoiceRepository.save(invoice);
+        singleFlight.invalidateAfterCommit(InvoiceService.INVOICE_LIST_FLIGHT, invoice.getBusinessId());
+
+        if (invoice.getStatus() == Invoice.InvoiceStatus.PAID && previousStatus != Invoice.InvoiceStatus.PAID) {
+            outboxService.record(OutboxEvent.AggregateType.INVOICE, invoice.getId(), invoice.getBusinessId(),
+                    OutboxEvent.EventType.INVOICE_PAID, Map.of(
+                            "id", invoice.getId(),
+                            "invoiceNumber", invoice.getInvoiceNumber(),
+                            "totalAmount", invoice.getTotalAmount(),
+                            "paidAmount", invoice.getPaidAmount()));
+        }
     }
 
     private PaymentResponse mapToResponse(Payment payment) {
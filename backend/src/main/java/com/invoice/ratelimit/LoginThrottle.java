@@ -0,0 +1,63 @@
+package com.invoice.ratelimit;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Caps login attempts before any password is hashed, so guessing and retry storms are turned away without costing
+ * BCrypt time. Every attempt counts against the client address. Only failed attempts count against the account, and
+ * per client address, so nobody can lock a user out of their own account by failing logins for it from elsewhere.
+ * Failed attempts from all addresses together also count against the account alone, but that bucket never refuses:
+ * once it runs over, logins to the account are only held back until it would admit them again, which slows a
+ * distributed guesser down to its rate while the owner still gets in. Uses the same per-node buckets as request rate
+ * limiting; the client address is the one the trusted proxy reported, see {@code server.tomcat.remoteip}.
+ */
+@Component
+public class LoginThrottle {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    public LoginThrottle(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    /**
+     * @return 0 if the attempt may go ahead at once, otherwise how many nanoseconds to hold it back first
+     * @throws RateLimitExceededException if the client address, or this address for this account, is over its limit
+     */
+    public long check(String clientAddress, String email) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        long waitNanos = rateLimiter.tryAcquire("login-ip|" + clientAddress, properties.getLogin().getPerAddress());
+        if (waitNanos == 0) {
+            waitNanos = rateLimiter.peek(accountKey(clientAddress, email));
+        }
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException("Too many login attempts. Please try again later.", waitNanos);
+        }
+        return rateLimiter.peek(accountDelayKey(email));
+    }
+
+    public void recordFailure(String clientAddress, String email) {
+        if (properties.isEnabled()) {
+            rateLimiter.tryAcquire(accountKey(clientAddress, email), properties.getLogin().getPerAccount());
+            rateLimiter.tryAcquire(accountDelayKey(email), properties.getLogin().getAccountDelay());
+        }
+    }
+
+    private static String accountKey(String clientAddress, String email) {
+        return "login-account|" + normalize(email) + "|" + clientAddress;
+    }
+
+    private static String accountDelayKey(String email) {
+        return "login-delay|" + normalize(email);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.invoice.ratelimit;
+
+import com.invoice.common.exception.ApiException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown where limiting happens inside a request rather than in {@link RateLimitFilter}; reported as 429.
+ */
+public class RateLimitExceededException extends ApiException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterNanos) {
+        super(HttpStatus.TOO_MANY_REQUESTS, message);
+        this.retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999) / 1_000_000_000);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
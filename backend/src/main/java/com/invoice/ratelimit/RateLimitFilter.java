@@ -0,0 +1,161 @@
+package com.invoice.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.business.dto.BusinessPlan;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits each business to its plan's request rate, plus a tighter rate on the endpoints the plan names. Runs after
+ * JWT authentication and shard routing; anonymous requests are not limited here. Refused requests get 429 with
+ * Retry-After and are counted in {@code ratelimit.rejected}, tagged by plan and by which bucket ran out.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BUSINESS_SCOPE = "business";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final BusinessRepository businessRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<EndpointRule> endpointRules = new ArrayList<>();
+    private final Map<String, Subject> subjectsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties,
+            BusinessRepository businessRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.businessRepository = businessRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        properties.getEndpoints().forEach((name, endpoint) -> endpointRules.add(new EndpointRule(name,
+                endpoint.getMethod(), PathPatternParser.defaultInstance.parse(endpoint.getPath()))));
+    }
+
+    private record EndpointRule(String name, String method, PathPattern pattern) {
+
+        private boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.isEmpty() || method.equalsIgnoreCase(requestMethod))
+                    && pattern.matches(path);
+        }
+    }
+
+    // Who a user's requests are counted against, and under which plan
+    private record Subject(String key, String plan, long expiresAt) {
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Subject subject = subjectFor(authentication.getName());
+        RateLimitProperties.Plan plan = properties.getPlans().get(subject.plan());
+        if (plan == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String scope = BUSINESS_SCOPE;
+        long waitNanos = rateLimiter.tryAcquire(subject.plan() + "|" + subject.key(), plan.getBusiness());
+        if (waitNanos == 0 && !plan.getEndpoints().isEmpty()) {
+            EndpointRule rule = match(request);
+            RateLimitProperties.Limit limit = rule != null ? plan.getEndpoints().get(rule.name()) : null;
+            if (limit != null) {
+                scope = rule.name();
+                waitNanos = rateLimiter.tryAcquire(subject.plan() + "|" + subject.key() + "|" + scope, limit);
+            }
+        }
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        rejectionCounter(subject.plan(), scope).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests",
+                "Rate limit exceeded; please retry later", request.getRequestURI()));
+    }
+
+    private EndpointRule match(HttpServletRequest request) {
+        if (endpointRules.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (EndpointRule rule : endpointRules) {
+            if (rule.matches(request.getMethod(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private Subject subjectFor(String email) {
+        long now = System.currentTimeMillis();
+        Subject subject = subjectsByUser.get(email);
+        if (subject != null && subject.expiresAt() > now) {
+            return subject;
+        }
+        Optional<BusinessPlan> businessPlan = businessRepository.findPlanByUserEmail(email);
+        // Users without a business yet are limited on their own under the default plan
+        String key = businessPlan.map(found -> "b" + found.businessId()).orElse("u:" + email);
+        String plan = businessPlan.map(BusinessPlan::plan)
+                .filter(name -> properties.getPlans().containsKey(name))
+                .orElse(properties.getDefaultPlan());
+        subject = new Subject(key, plan, now + properties.getPlanCacheMs());
+        subjectsByUser.put(email, subject);
+        return subject;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void evictExpiredSubjects() {
+        long now = System.currentTimeMillis();
+        subjectsByUser.values().removeIf(subject -> subject.expiresAt() <= now);
+    }
+
+    private Counter rejectionCounter(String plan, String scope) {
+        return rejectionCounters.computeIfAbsent(plan + "|" + scope, key -> Counter.builder("ratelimit.rejected")
+                .tag("plan", plan)
+                .tag("scope", scope)
+                .description("Requests refused by the rate limiter")
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,71 @@
+package com.invoice.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Plan for businesses without one, and for users who have not created a business yet
+    private String defaultPlan = "FREE";
+
+    // How long a node keeps a user's business and plan before looking them up again
+    private long planCacheMs = 60000;
+
+    // Endpoints that get a bucket of their own on top of the business-wide one; first match wins
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private Map<String, Plan> plans = new LinkedHashMap<>();
+
+    private Login login = new Login();
+
+    @Data
+    public static class Login {
+
+        // Attempts from one client address, whichever accounts they target
+        private Limit perAddress = new Limit(30, 10);
+
+        // Failed attempts against one account from one client address; successful logins are not counted
+        private Limit perAccount = new Limit(10, 5);
+
+        // Failed attempts against one account from any address; over it, logins are delayed but never refused
+        private Limit accountDelay = new Limit(20, 10);
+    }
+
+    @Data
+    public static class Endpoint {
+
+        // Any method when empty
+        private String method;
+        private String path;
+    }
+
+    @Data
+    public static class Plan {
+
+        // Shared by every request of the business
+        private Limit business = new Limit();
+
+        // Keyed by endpoint name; endpoints without an entry only count against the business bucket
+        private Map<String, Limit> endpoints = new LinkedHashMap<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        private int requestsPerMinute = 600;
+
+        // Requests that may arrive at once before the steady rate applies
+        private int burst = 100;
+    }
+}
@@ -0,0 +1,91 @@
+package com.invoice.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, implemented as the generic cell rate algorithm: a bucket is a single "theoretical
+ * arrival time" that each admitted request pushes one emission interval further, and a request is refused while
+ * that time runs more than the burst ahead of the clock. Taking a token is one compare-and-set with no lock, and a
+ * bucket that has fully refilled holds no information, so idle buckets are simply dropped.
+ *
+ * <p>Limits are per node; behind a load balancer each node admits its share of the configured rate.
+ */
+@Component
+public class RateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(MeterRegistry meterRegistry) {
+        meterRegistry.gaugeMapSize("ratelimit.buckets", Tags.empty(), buckets);
+    }
+
+    /**
+     * @return 0 if the request is admitted, otherwise how many nanoseconds until it would be
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit));
+        }
+        return bucket.tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Like {@link #tryAcquire} but without taking a token, for buckets that are only charged after the fact.
+     */
+    public long peek(String key) {
+        Bucket bucket = buckets.get(key);
+        return bucket != null ? bucket.peek(System.nanoTime()) : 0;
+    }
+
+    // A request racing with the sweep may land on a dropped bucket and get one extra token; harmless
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    static final class Bucket {
+
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        Bucket(RateLimitProperties.Limit limit) {
+            this.intervalNanos = 60_000_000_000L / Math.max(1, limit.getRequestsPerMinute());
+            this.toleranceNanos = intervalNanos * (Math.max(1, limit.getBurst()) - 1);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long ahead = start - now;
+                if (ahead > toleranceNanos) {
+                    return ahead - toleranceNanos;
+                }
+                if (theoreticalArrival.compareAndSet(current, start + intervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        long peek(long now) {
+            long current = theoreticalArrival.get();
+            long ahead = current == Long.MIN_VALUE || current - now < 0 ? 0 : current - now;
+            return Math.max(0, ahead - toleranceNanos);
+        }
+
+        boolean isFull(long now) {
+            long current = theoreticalArrival.get();
+            return current == Long.MIN_VALUE || current - now <= 0;
+        }
+    }
+}
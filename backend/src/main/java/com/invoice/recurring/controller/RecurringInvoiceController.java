@@ -0,0 +1,41 @@
+package com.invoice.recurring.controller;
+
+import com.invoice.recurring.dto.RecurringInvoiceRequest;
+import com.invoice.recurring.dto.RecurringInvoiceResponse;
+import com.invoice.recurring.service.RecurringInvoiceService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/recurring-invoices")
+@RequiredArgsConstructor
+public class RecurringInvoiceController {
+
+    private final RecurringInvoiceService recurringInvoiceService;
+
+    @PostMapping
+    public ResponseEntity<RecurringInvoiceResponse> createSchedule(@Valid @RequestBody RecurringInvoiceRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurringInvoiceService.createSchedule(request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringInvoiceResponse>> getSchedules() {
+        return ResponseEntity.ok(recurringInvoiceService.getSchedules());
+    }
+
+    @PutMapping("/{id}/active")
+    public ResponseEntity<RecurringInvoiceResponse> setActive(@PathVariable Long id, @RequestParam boolean active) {
+        return ResponseEntity.ok(recurringInvoiceService.setActive(id, active));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSchedule(@PathVariable Long id) {
+        recurringInvoiceService.deleteSchedule(id);
+        return ResponseEntity.noContent().build();
+    }
+}
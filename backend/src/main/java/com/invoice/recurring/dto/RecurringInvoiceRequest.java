@@ -0,0 +1,40 @@
+package com.invoice.recurring.dto;
+
+import com.invoice.invoice.dto.InvoiceItemRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class RecurringInvoiceRequest {
+
+    private Long customerId;
+
+    private String invoiceTitle;
+
+    private String notes;
+
+    private Long templateId;
+
+    private BigDecimal totalDiscount;
+
+    @NotBlank(message = "Frequency is required")
+    private String frequency; // WEEKLY, MONTHLY, QUARTERLY, YEARLY
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    @Min(value = 0, message = "Due in days must be 0 or greater")
+    private Integer dueInDays;
+
+    @NotEmpty(message = "Schedule must have at least one item")
+    @Valid
+    private List<InvoiceItemRequest> items;
+}
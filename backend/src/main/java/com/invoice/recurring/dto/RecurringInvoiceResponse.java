@@ -0,0 +1,34 @@
+package com.invoice.recurring.dto;
+
+import com.invoice.invoice.dto.InvoiceItemRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringInvoiceResponse {
+
+    private Long id;
+    private Long businessId;
+    private Long customerId;
+    private String invoiceTitle;
+    private String notes;
+    private Long templateId;
+    private BigDecimal totalDiscount;
+    private String frequency;
+    private LocalDate startDate;
+    private LocalDate nextRunDate;
+    private Integer dueInDays;
+    private Integer generatedCount;
+    private Boolean active;
+    private LocalDateTime lastGeneratedAt;
+    private LocalDateTime createdAt;
+    private List<InvoiceItemRequest> items;
+}
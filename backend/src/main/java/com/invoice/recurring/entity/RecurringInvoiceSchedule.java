@@ -0,0 +1,98 @@
+package com.invoice.recurring.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "recurring_invoice_schedules",
+        indexes = {
+            @Index(name = "idx_recurring_due", columnList = "active, next_run_date"),
+            @Index(name = "idx_recurring_lease_owner", columnList = "lease_owner"),
+            @Index(name = "idx_recurring_business", columnList = "business_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringInvoiceSchedule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "invoice_title")
+    private String invoiceTitle;
+
+    @Column(columnDefinition = "TEXT")
+    private String notes;
+
+    @Column(name = "template_id")
+    private Long templateId;
+
+    @Column(name = "total_discount", precision = 10, scale = 2)
+    private BigDecimal totalDiscount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Frequency frequency;
+
+    // Run dates are always computed from the start date so month-end schedules don't drift
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "generated_count", nullable = false)
+    private Integer generatedCount = 0;
+
+    @Column(name = "next_run_date", nullable = false)
+    private LocalDate nextRunDate;
+
+    @Column(name = "due_in_days")
+    private Integer dueInDays;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    // Row lease so several app nodes can share the scheduler without generating the same invoice twice
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_generated_at")
+    private LocalDateTime lastGeneratedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "schedule", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    private List<RecurringInvoiceItem> items = new ArrayList<>();
+
+    public enum Frequency {
+        WEEKLY, MONTHLY, QUARTERLY, YEARLY
+    }
+
+    public LocalDate runDate(int occurrence) {
+        return switch (frequency) {
+            case WEEKLY -> startDate.plusWeeks(occurrence);
+            case MONTHLY -> startDate.plusMonths(occurrence);
+            case QUARTERLY -> startDate.plusMonths(3L * occurrence);
+            case YEARLY -> startDate.plusYears(occurrence);
+        };
+    }
+}
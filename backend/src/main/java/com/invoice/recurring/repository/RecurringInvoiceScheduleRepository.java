@@ -0,0 +1,34 @@
+package com.invoice.recurring.repository;
+
+import com.invoice.recurring.entity.RecurringInvoiceSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecurringInvoiceScheduleRepository extends JpaRepository<RecurringInvoiceSchedule, Long> {
+
+    List<RecurringInvoiceSchedule> findByBusinessIdOrderByCreatedAtDesc(Long businessId);
+
+    // Claims up to :limit due schedules whose lease is free or expired, in one statement so two nodes never both win.
+    // Schedules of the excluded businesses (those being moved) are not touched; the list must not be empty
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE recurring_invoice_schedules SET lease_owner = :owner, lease_until = :leaseUntil "
+            + "WHERE active = true AND next_run_date <= :today AND (lease_until IS NULL OR lease_until < :now) "
+            + "AND business_id NOT IN (:excluded) ORDER BY business_id, id LIMIT :limit", nativeQuery = true)
+    int claimDue(@Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("today") LocalDate today, @Param("now") LocalDateTime now,
+            @Param("excluded") Collection<Long> excluded, @Param("limit") int limit);
+
+    @Query("select s.id, s.businessId from RecurringInvoiceSchedule s where s.leaseOwner = :owner and s.leaseUntil > :now")
+    List<Object[]> findLeased(@Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,162 @@
+package com.invoice.recurring.service;
+
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.SingleFlight;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.customer.entity.Customer;
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.invoice.dto.InvoiceRequest;
+import com.invoice.invoice.dto.InvoiceResponse;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.invoice.service.InvoiceService;
+import com.invoice.live.service.LiveEventHub;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxService;
+import com.invoice.recurring.entity.RecurringInvoiceSchedule;
+import com.invoice.recurring.repository.RecurringInvoiceScheduleRepository;
+import com.invoice.search.service.InvoiceSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class RecurringInvoiceGenerator {
+
+    private static final DateTimeFormatter RUN_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final RecurringInvoiceScheduleRepository scheduleRepository;
+    private final BusinessRepository businessRepository;
+    private final CustomerRepository customerRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final OutboxService outboxService;
+    private final InvoiceSearchIndex searchIndex;
+    private final LiveEventHub liveEventHub;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCatchUp;
+
+    public RecurringInvoiceGenerator(RecurringInvoiceScheduleRepository scheduleRepository,
+            BusinessRepository businessRepository, CustomerRepository customerRepository,
+            InvoiceRepository invoiceRepository, InvoiceService invoiceService, OutboxService outboxService,
+            InvoiceSearchIndex searchIndex, LiveEventHub liveEventHub,
+            SingleFlight singleFlight, TransactionTemplate transactionTemplate,
+            @Value("${recurring.max-catch-up:12}") int maxCatchUp) {
+        this.scheduleRepository = scheduleRepository;
+        this.businessRepository = businessRepository;
+        this.customerRepository = customerRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.invoiceService = invoiceService;
+        this.outboxService = outboxService;
+        this.searchIndex = searchIndex;
+        this.liveEventHub = liveEventHub;
+        this.singleFlight = singleFlight;
+        this.transactionTemplate = transactionTemplate;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    public record Result(int generated, List<Long> failedScheduleIds) {
+    }
+
+    /**
+     * Generates every due invoice for one business's leased schedules, one transaction per schedule, and releases
+     * each schedule's lease with its invoices. A schedule that fails keeps its lease until it expires and is reported
+     * back, while the business's other schedules still commit. Invoice numbers are derived from the schedule and run
+     * date, so even if a lease expires mid-run and another node picks the schedule up, the unique invoice number stops
+     * a second copy from committing.
+     */
+    public Result generateForBusiness(Long businessId, List<Long> scheduleIds, String leaseOwner, LocalDate today) {
+        Business business = businessRepository.findById(businessId)
+                .orElseThrow(() -> new NotFoundException("Business not found"));
+        List<RecurringInvoiceSchedule> schedules = scheduleRepository.findAllById(scheduleIds);
+
+        List<Long> customerIds = schedules.stream()
+                .map(RecurringInvoiceSchedule::getCustomerId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Customer> customers = customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        int generated = 0;
+        List<Long> failed = new ArrayList<>();
+        for (RecurringInvoiceSchedule schedule : schedules) {
+            Customer customer = schedule.getCustomerId() != null ? customers.get(schedule.getCustomerId()) : null;
+            try {
+                generated += transactionTemplate.execute(
+                        tx -> generateForSchedule(business, customer, schedule.getId(), leaseOwner, today));
+            } catch (RuntimeException e) {
+                failed.add(schedule.getId());
+                log.error("Recurring invoice generation failed for schedule {}", schedule.getId(), e);
+            }
+        }
+        return new Result(generated, failed);
+    }
+
+    private int generateForSchedule(Business business, Customer customer, Long scheduleId, String leaseOwner,
+            LocalDate today) {
+        RecurringInvoiceSchedule schedule = scheduleRepository.findById(scheduleId).orElse(null);
+        if (schedule == null || !leaseOwner.equals(schedule.getLeaseOwner())) {
+            return 0; // Deleted, or the lease expired and another node took the schedule over
+        }
+
+        List<Invoice> invoices = new ArrayList<>();
+        while (schedule.getActive() && !schedule.getNextRunDate().isAfter(today) && invoices.size() < maxCatchUp) {
+            LocalDate runDate = schedule.getNextRunDate();
+
+            Invoice invoice = invoiceService.buildInvoice(business, customer, toInvoiceRequest(schedule, runDate));
+            invoice.setInvoiceNumber("INV-" + runDate.format(RUN_DATE) + "-R" + schedule.getId());
+            invoices.add(invoice);
+
+            schedule.setGeneratedCount(schedule.getGeneratedCount() + 1);
+            schedule.setNextRunDate(schedule.runDate(schedule.getGeneratedCount()));
+        }
+
+        if (!invoices.isEmpty()) {
+            schedule.setLastGeneratedAt(LocalDateTime.now());
+        }
+        schedule.setLeaseOwner(null);
+        schedule.setLeaseUntil(null);
+
+        Long businessId = business.getId();
+        List<Invoice> saved = invoiceRepository.saveAll(invoices);
+        for (Invoice invoice : saved) {
+            InvoiceResponse response = invoiceService.convertToResponse(invoice);
+            outboxService.record(OutboxEvent.AggregateType.INVOICE, invoice.getId(), businessId,
+                    OutboxEvent.EventType.INVOICE_CREATED, response);
+            liveEventHub.publishAfterCommit(businessId, "invoice.created", response);
+            searchIndex.indexAfterCommit(invoice, customer);
+        }
+        if (!saved.isEmpty()) {
+            singleFlight.invalidateAfterCommit(InvoiceService.INVOICE_LIST_FLIGHT, businessId);
+        }
+        return saved.size();
+    }
+
+    private InvoiceRequest toInvoiceRequest(RecurringInvoiceSchedule schedule, LocalDate runDate) {
+        InvoiceRequest request = new InvoiceRequest();
+        request.setCustomerId(schedule.getCustomerId());
+        request.setInvoiceTitle(schedule.getInvoiceTitle());
+        request.setInvoiceDate(runDate);
+        request.setDueDate(schedule.getDueInDays() != null ? runDate.plusDays(schedule.getDueInDays()) : null);
+        request.setTemplateId(schedule.getTemplateId());
+        request.setNotes(schedule.getNotes());
+        request.setTotalDiscount(schedule.getTotalDiscount());
+        request.setItems(RecurringInvoiceService.toItemRequests(schedule));
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.invoice.recurring.service;
+
+import com.invoice.datasource.ShardContext;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.recurring.repository.RecurringInvoiceScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Materializes due recurring invoices. Each run claims a batch of due schedules with a row lease, then fans the
+ * claimed schedules out to a worker pool with one task per business, so different businesses proceed in parallel while
+ * each schedule's invoices commit in a transaction of their own. Any number of nodes can run this at once.
+ */
+@Slf4j
+@Component
+public class RecurringInvoiceScheduler {
+
+    private final RecurringInvoiceScheduleRepository scheduleRepository;
+    private final RecurringInvoiceGenerator generator;
+    private final ShardDirectory shardDirectory;
+    private final String nodeId;
+    private final int claimBatchSize;
+    private final long leaseSeconds;
+    private final ExecutorService workers;
+
+    public RecurringInvoiceScheduler(RecurringInvoiceScheduleRepository scheduleRepository,
+            RecurringInvoiceGenerator generator, ShardDirectory shardDirectory,
+            @Value("${recurring.node-id:}") String nodeId,
+            @Value("${recurring.worker-threads:4}") int workerThreads,
+            @Value("${recurring.claim-batch-size:500}") int claimBatchSize,
+            @Value("${recurring.lease-seconds:300}") long leaseSeconds) {
+        this.scheduleRepository = scheduleRepository;
+        this.generator = generator;
+        this.shardDirectory = shardDirectory;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.claimBatchSize = claimBatchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+    }
+
+    @Scheduled(fixedDelayString = "${recurring.poll-interval-ms:60000}")
+    public void run() {
+        shardDirectory.forEachShard("Recurring invoice generation", this::runShard);
+    }
+
+    private void runShard() {
+        LocalDate today = LocalDate.now();
+        // Schedules that failed in this run keep their lease until it expires, which is their backoff; they are
+        // skipped here, because findLeased would otherwise hand them straight back on the next iteration
+        Set<Long> failed = new HashSet<>();
+        int claimed;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            // NOT IN () is not valid SQL; 0 is never a business id
+            Set<Long> frozen = shardDirectory.frozenBusinessIds();
+            claimed = scheduleRepository.claimDue(nodeId, now.plusSeconds(leaseSeconds), today, now,
+                    frozen.isEmpty() ? List.of(0L) : frozen, claimBatchSize);
+            if (claimed == 0) {
+                return;
+            }
+
+            Map<Long, List<Long>> schedulesByBusiness = new LinkedHashMap<>();
+            for (Object[] row : scheduleRepository.findLeased(nodeId, now)) {
+                // Leases on a business that has just moved away simply expire; the target shard generates its invoices
+                if (failed.contains((Long) row[0]) || !shardDirectory.isServedHere((Long) row[1])) {
+                    continue;
+                }
+                schedulesByBusiness.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add((Long) row[0]);
+            }
+
+            Map<Long, Future<RecurringInvoiceGenerator.Result>> running = new LinkedHashMap<>();
+            schedulesByBusiness.forEach((businessId, scheduleIds) -> running.put(businessId,
+                    workers.submit(ShardContext.wrap(
+                            () -> generator.generateForBusiness(businessId, scheduleIds, nodeId, today)))));
+
+            int generated = 0;
+            for (Map.Entry<Long, Future<RecurringInvoiceGenerator.Result>> entry : running.entrySet()) {
+                try {
+                    RecurringInvoiceGenerator.Result result = entry.getValue().get();
+                    generated += result.generated();
+                    failed.addAll(result.failedScheduleIds());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    // Leases are left to expire, so the business is retried on a later run
+                    failed.addAll(schedulesByBusiness.get(entry.getKey()));
+                    log.error("Recurring invoice generation failed for business {}", entry.getKey(), e.getCause());
+                }
+            }
+            log.info("Generated {} recurring invoices for {} businesses", generated, schedulesByBusiness.size());
+        } while (claimed == claimBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
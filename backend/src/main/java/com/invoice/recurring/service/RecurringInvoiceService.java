@@ -0,0 +1,176 @@
+package com.invoice.recurring.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.catalog.service.CatalogService;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.customer.entity.Customer;
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.invoice.dto.InvoiceItemRequest;
+import com.invoice.recurring.dto.RecurringInvoiceRequest;
+import com.invoice.recurring.dto.RecurringInvoiceResponse;
+import com.invoice.recurring.entity.RecurringInvoiceItem;
+import com.invoice.recurring.entity.RecurringInvoiceSchedule;
+import com.invoice.recurring.repository.RecurringInvoiceScheduleRepository;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class RecurringInvoiceService {
+
+    private final RecurringInvoiceScheduleRepository scheduleRepository;
+    private final CustomerRepository customerRepository;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final CatalogService catalogService;
+
+    public RecurringInvoiceService(RecurringInvoiceScheduleRepository scheduleRepository,
+            CustomerRepository customerRepository, BusinessRepository businessRepository,
+            UserRepository userRepository, CatalogService catalogService) {
+        this.scheduleRepository = scheduleRepository;
+        this.customerRepository = customerRepository;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.catalogService = catalogService;
+    }
+
+    @Transactional
+    public RecurringInvoiceResponse createSchedule(RecurringInvoiceRequest request) {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        if (request.getCustomerId() != null) {
+            Customer customer = customerRepository.findById(request.getCustomerId())
+                    .orElseThrow(() -> new NotFoundException("Customer not found"));
+
+            if (!customer.getBusinessId().equals(businessId)) {
+                throw new ForbiddenException("Unauthorized access to customer");
+            }
+        }
+
+        RecurringInvoiceSchedule.Frequency frequency;
+        try {
+            frequency = RecurringInvoiceSchedule.Frequency.valueOf(request.getFrequency().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown frequency: " + request.getFrequency());
+        }
+
+        RecurringInvoiceSchedule schedule = new RecurringInvoiceSchedule();
+        schedule.setBusinessId(businessId);
+        schedule.setCustomerId(request.getCustomerId());
+        schedule.setInvoiceTitle(request.getInvoiceTitle());
+        schedule.setNotes(request.getNotes());
+        schedule.setTemplateId(request.getTemplateId());
+        schedule.setTotalDiscount(request.getTotalDiscount() != null ? request.getTotalDiscount() : BigDecimal.ZERO);
+        schedule.setFrequency(frequency);
+        schedule.setStartDate(request.getStartDate());
+        schedule.setNextRunDate(request.getStartDate());
+        schedule.setDueInDays(request.getDueInDays());
+        schedule.setGeneratedCount(0);
+        schedule.setActive(true);
+
+        // Catalog references are resolved now, so later price changes in the catalog don't alter the schedule
+        for (InvoiceItemRequest itemReq : catalogService.resolveItems(businessId, request.getItems())) {
+            RecurringInvoiceItem item = new RecurringInvoiceItem();
+            item.setSchedule(schedule);
+            item.setItemName(itemReq.getItemName());
+            item.setItemDescription(itemReq.getItemDescription());
+            item.setQuantity(itemReq.getQuantity());
+            item.setPrice(itemReq.getPrice());
+            item.setDiscount(itemReq.getDiscount() != null ? itemReq.getDiscount() : BigDecimal.ZERO);
+            item.setGstRate(itemReq.getGstRate());
+            schedule.getItems().add(item);
+        }
+
+        return mapToResponse(scheduleRepository.save(schedule));
+    }
+
+    public List<RecurringInvoiceResponse> getSchedules() {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        return scheduleRepository.findByBusinessIdOrderByCreatedAtDesc(businessId)
+                .stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public RecurringInvoiceResponse setActive(Long id, boolean active) {
+        RecurringInvoiceSchedule schedule = getOwnedSchedule(id);
+        schedule.setActive(active);
+        return mapToResponse(scheduleRepository.save(schedule));
+    }
+
+    @Transactional
+    public void deleteSchedule(Long id) {
+        scheduleRepository.delete(getOwnedSchedule(id));
+    }
+
+    private RecurringInvoiceSchedule getOwnedSchedule(Long id) {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        RecurringInvoiceSchedule schedule = scheduleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Recurring invoice not found"));
+
+        if (!schedule.getBusinessId().equals(businessId)) {
+            throw new ForbiddenException("Unauthorized access to recurring invoice");
+        }
+        return schedule;
+    }
+
+    static List<InvoiceItemRequest> toItemRequests(RecurringInvoiceSchedule schedule) {
+        return schedule.getItems().stream()
+                .map(item -> {
+                    InvoiceItemRequest itemReq = new InvoiceItemRequest();
+                    itemReq.setItemName(item.getItemName());
+                    itemReq.setItemDescription(item.getItemDescription());
+                    itemReq.setQuantity(item.getQuantity());
+                    itemReq.setPrice(item.getPrice());
+                    itemReq.setDiscount(item.getDiscount());
+                    itemReq.setGstRate(item.getGstRate());
+                    return itemReq;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private RecurringInvoiceResponse mapToResponse(RecurringInvoiceSchedule schedule) {
+        RecurringInvoiceResponse response = new RecurringInvoiceResponse();
+        response.setId(schedule.getId());
+        response.setBusinessId(schedule.getBusinessId());
+        response.setCustomerId(schedule.getCustomerId());
+        response.setInvoiceTitle(schedule.getInvoiceTitle());
+        response.setNotes(schedule.getNotes());
+        response.setTemplateId(schedule.getTemplateId());
+        response.setTotalDiscount(schedule.getTotalDiscount());
+        response.setFrequency(schedule.getFrequency().name());
+        response.setStartDate(schedule.getStartDate());
+        response.setNextRunDate(schedule.getNextRunDate());
+        response.setDueInDays(schedule.getDueInDays());
+        response.setGeneratedCount(schedule.getGeneratedCount());
+        response.setActive(schedule.getActive());
+        response.setLastGeneratedAt(schedule.getLastGeneratedAt());
+        response.setCreatedAt(schedule.getCreatedAt());
+        response.setItems(toItemRequests(schedule));
+        return response;
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
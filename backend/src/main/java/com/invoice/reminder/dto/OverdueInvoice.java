@@ -0,0 +1,21 @@
+package com.invoice.reminder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueInvoice {
+
+    private Long id;
+    private Long businessId;
+    private Long customerId;
+    private String invoiceNumber;
+    private LocalDate dueDate;
+    private BigDecimal dueAmount;
+}
@@ -0,0 +1,40 @@
+package com.invoice.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "invoice_reminders",
+        uniqueConstraints = @UniqueConstraint(name = "uk_invoice_reminders_invoice_due",
+                columnNames = {"invoice_id", "due_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceReminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    // Part of the unique key, so moving the due date makes the invoice eligible for one new reminder
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "due_amount", precision = 10, scale = 2)
+    private BigDecimal dueAmount;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+}
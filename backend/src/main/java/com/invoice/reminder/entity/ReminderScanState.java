@@ -0,0 +1,33 @@
+package com.invoice.reminder.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of the overdue scanner, one row per invoice status it walks.
+ */
+@Entity
+@Table(name = "reminder_scan_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderScanState {
+
+    @Id
+    @Column(name = "scan_key", length = 32)
+    private String scanKey;
+
+    @Column(name = "last_due_date", nullable = false)
+    private LocalDate lastDueDate;
+
+    @Column(name = "last_invoice_id", nullable = false)
+    private Long lastInvoiceId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.invoice.reminder.repository;
+
+import com.invoice.reminder.entity.ReminderScanState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReminderScanStateRepository extends JpaRepository<ReminderScanState, String> {
+}
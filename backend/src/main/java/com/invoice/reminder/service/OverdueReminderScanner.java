@@ -0,0 +1,171 @@
+package com.invoice.reminder.service;
+
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxService;
+import com.invoice.reminder.dto.OverdueInvoice;
+import com.invoice.reminder.entity.ReminderScanState;
+import com.invoice.reminder.repository.ReminderScanStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Emits one INVOICE_OVERDUE outbox event per overdue invoice. For each open status it walks the
+ * (status, due_date, id) index in bounded batches, starting {@code reminder.rescan-days} before today - or further
+ * back at the persisted high-water mark if an earlier walk never got that far - so invoices inserted with a due date
+ * behind the mark (backdated or catch-up invoices) are still picked up. Invoices already in invoice_reminders for
+ * their due date are skipped, and the unique (invoice_id, due_date) key keeps a replayed batch from reminding twice.
+ */
+@Slf4j
+@Component
+public class OverdueReminderScanner {
+
+    private static final List<Invoice.InvoiceStatus> OPEN_STATUSES =
+            List.of(Invoice.InvoiceStatus.DUE, Invoice.InvoiceStatus.PARTIAL);
+    private static final LocalDate EPOCH = LocalDate.of(1970, 1, 1);
+    private static final String SELECT_REMINDED = "SELECT invoice_id, due_date FROM invoice_reminders "
+            + "WHERE invoice_id IN (%s)";
+    private static final String INSERT_REMINDERS = "INSERT IGNORE INTO invoice_reminders "
+            + "(invoice_id, business_id, due_date, due_amount, sent_at) VALUES ";
+
+    private final InvoiceRepository invoiceRepository;
+    private final ReminderScanStateRepository scanStateRepository;
+    private final OutboxService outboxService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final int batchSize;
+    private final int rescanDays;
+
+    public OverdueReminderScanner(InvoiceRepository invoiceRepository, ReminderScanStateRepository scanStateRepository,
+            OutboxService outboxService, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ShardDirectory shardDirectory, @Value("${reminder.batch-size:1000}") int batchSize,
+            @Value("${reminder.rescan-days:90}") int rescanDays) {
+        this.invoiceRepository = invoiceRepository;
+        this.scanStateRepository = scanStateRepository;
+        this.outboxService = outboxService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardDirectory = shardDirectory;
+        this.batchSize = batchSize;
+        this.rescanDays = rescanDays;
+    }
+
+    private record BatchResult(int scanned, int reminded, LocalDate lastDueDate, long lastInvoiceId) {
+    }
+
+    @Scheduled(cron = "${reminder.scan-cron:0 */15 * * * *}")
+    public void scan() {
+        // Each shard keeps its own scan cursor in reminder_scan_state
+        shardDirectory.forEachShard("Overdue reminder scan", this::scanShard);
+    }
+
+    private void scanShard() {
+        LocalDate today = LocalDate.now();
+        for (Invoice.InvoiceStatus status : OPEN_STATUSES) {
+            long started = System.nanoTime();
+            LocalDate mark = scanStateRepository.findById(scanKey(status))
+                    .map(ReminderScanState::getLastDueDate)
+                    .orElse(EPOCH);
+            LocalDate afterDueDate = mark.isBefore(today.minusDays(rescanDays)) ? mark : today.minusDays(rescanDays);
+            long afterId = 0;
+            int scanned = 0;
+            int reminded = 0;
+            BatchResult batch;
+            do {
+                LocalDate fromDueDate = afterDueDate;
+                long fromId = afterId;
+                batch = transactionTemplate.execute(tx -> scanBatch(status, today, fromDueDate, fromId));
+                scanned += batch.scanned();
+                reminded += batch.reminded();
+                afterDueDate = batch.lastDueDate();
+                afterId = batch.lastInvoiceId();
+            } while (batch.scanned() == batchSize);
+
+            if (reminded > 0) {
+                log.info("Overdue scan of {} invoices: {} scanned, {} reminders in {}ms", status, scanned, reminded,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+        }
+    }
+
+    // The reminders, their outbox events and the mark of a batch commit together
+    private BatchResult scanBatch(Invoice.InvoiceStatus status, LocalDate today, LocalDate afterDueDate,
+            long afterId) {
+        List<OverdueInvoice> overdue = invoiceRepository.findOverdueAfter(status, today, afterDueDate, afterId,
+                PageRequest.of(0, batchSize));
+        if (overdue.isEmpty()) {
+            return new BatchResult(0, 0, afterDueDate, afterId);
+        }
+
+        // Most of a rescanned window was reminded on earlier runs; one lookup keeps those out of the inserts
+        Set<String> reminded = new HashSet<>();
+        jdbcTemplate.query(String.format(SELECT_REMINDED, String.join(",", Collections.nCopies(overdue.size(), "?"))),
+                rs -> {
+                    reminded.add(rs.getLong(1) + ":" + rs.getDate(2).toLocalDate());
+                }, overdue.stream().map(OverdueInvoice::getId).toArray());
+        // Invoices of a business being moved are left to the target shard, whose rescan window still covers them
+        List<OverdueInvoice> fresh = overdue.stream()
+                .filter(invoice -> !reminded.contains(invoice.getId() + ":" + invoice.getDueDate()))
+                .filter(invoice -> shardDirectory.isServedHere(invoice.getBusinessId()))
+                .toList();
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!fresh.isEmpty()) {
+            StringBuilder sql = new StringBuilder(INSERT_REMINDERS);
+            List<Object> args = new ArrayList<>(fresh.size() * 5);
+            List<OutboxService.NewEvent> events = new ArrayList<>(fresh.size());
+            for (OverdueInvoice invoice : fresh) {
+                sql.append(args.isEmpty() ? "" : ",").append("(?, ?, ?, ?, ?)");
+                args.add(invoice.getId());
+                args.add(invoice.getBusinessId());
+                args.add(Date.valueOf(invoice.getDueDate()));
+                args.add(invoice.getDueAmount());
+                args.add(Timestamp.valueOf(now));
+                events.add(new OutboxService.NewEvent(OutboxEvent.AggregateType.INVOICE, invoice.getId(),
+                        invoice.getBusinessId(), OutboxEvent.EventType.INVOICE_OVERDUE, Map.of(
+                                "id", invoice.getId(),
+                                "invoiceNumber", invoice.getInvoiceNumber(),
+                                "dueDate", invoice.getDueDate().toString(),
+                                "dueAmount", invoice.getDueAmount())));
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            outboxService.recordAll(events);
+        }
+
+        OverdueInvoice last = overdue.get(overdue.size() - 1);
+        ReminderScanState state = scanStateRepository.findById(scanKey(status))
+                .orElseGet(() -> new ReminderScanState(scanKey(status), EPOCH, 0L, null));
+        if (last.getDueDate().isAfter(state.getLastDueDate())
+                || (last.getDueDate().equals(state.getLastDueDate()) && last.getId() > state.getLastInvoiceId())) {
+            state.setLastDueDate(last.getDueDate());
+            state.setLastInvoiceId(last.getId());
+        }
+        state.setUpdatedAt(now);
+        scanStateRepository.save(state);
+
+        return new BatchResult(overdue.size(), fresh.size(), last.getDueDate(), last.getId());
+    }
+
+    private static String scanKey(Invoice.InvoiceStatus status) {
+        return "overdue:" + status.name();
+    }
+}
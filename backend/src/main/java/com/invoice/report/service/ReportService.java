@@ -0,0 +1,96 @@
+package com.invoice.report.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.workload.ReportingWorkload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Exports run in the reporting bulkhead against the reporting pool, so a large export queues behind other
+ * exports rather than behind - or in front of - invoice and payment requests.
+ */
+@Service
+public class ReportService {
+
+    private static final String INVOICE_HEADER = "Invoice Number,Invoice Date,Due Date,Customer,Customer GSTIN,Status,"
+            + "Subtotal,Discount,CGST,SGST,IGST,Total,Paid,Due\n";
+
+    private static final String INVOICE_ROWS = "SELECT i.invoice_number, i.invoice_date, i.due_date, c.name, c.gstin, "
+            + "i.status, i.subtotal, i.total_discount, i.cgst, i.sgst, i.igst, i.total_amount, i.paid_amount, "
+            + "i.due_amount FROM invoices i LEFT JOIN customers c ON c.id = i.customer_id "
+            + "WHERE i.business_id = ? AND i.invoice_date BETWEEN ? AND ? ORDER BY i.invoice_date, i.id LIMIT ?";
+
+    private final ReportingWorkload reportingWorkload;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final int maxRows;
+
+    public ReportService(ReportingWorkload reportingWorkload, BusinessRepository businessRepository,
+            UserRepository userRepository, @Value("${reports.max-rows:100000}") int maxRows) {
+        this.reportingWorkload = reportingWorkload;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.maxRows = maxRows;
+    }
+
+    public byte[] exportInvoicesCsv(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("Start date must not be after end date");
+        }
+        Long businessId = getBusinessIdForCurrentUser();
+        String csv = reportingWorkload.run("reports.invoices", () -> invoicesCsv(businessId, from, to));
+        return csv.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String invoicesCsv(Long businessId, LocalDate from, LocalDate to) {
+        StringBuilder csv = new StringBuilder(INVOICE_HEADER);
+        int[] rows = {0};
+        reportingWorkload.jdbcTemplate().query(INVOICE_ROWS, rs -> {
+            if (++rows[0] > maxRows) {
+                throw new ValidationException("More than " + maxRows + " invoices in this period. "
+                        + "Please export a shorter date range.");
+            }
+            for (int column = 1; column <= 14; column++) {
+                if (column > 1) {
+                    csv.append(',');
+                }
+                appendField(csv, rs.getString(column));
+            }
+            csv.append('\n');
+        }, businessId, Date.valueOf(from), Date.valueOf(to), maxRows + 1);
+        return csv.toString();
+    }
+
+    private static void appendField(StringBuilder csv, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            csv.append(value);
+            return;
+        }
+        csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
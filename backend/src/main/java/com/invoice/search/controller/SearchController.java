@@ -0,0 +1,31 @@
+package com.invoice.search.controller;
+
+import com.invoice.search.dto.InvoiceSearchResponse;
+import com.invoice.search.service.InvoiceSearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final InvoiceSearchService searchService;
+
+    public SearchController(InvoiceSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping("/invoices")
+    public ResponseEntity<InvoiceSearchResponse> searchInvoices(@RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(searchService.searchInvoices(query, page, size));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildIndex() {
+        return ResponseEntity.ok(Map.of("indexedInvoices", searchService.rebuildIndex()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.invoice.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceSearchHit {
+
+    private Long invoiceId;
+    private String invoiceNumber;
+    private String invoiceTitle;
+    private String customerName;
+    private LocalDate invoiceDate;
+    private BigDecimal totalAmount;
+    private Double score;
+}
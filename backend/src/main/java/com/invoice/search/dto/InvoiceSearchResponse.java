@@ -0,0 +1,19 @@
+package com.invoice.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceSearchResponse {
+
+    private String query;
+    private Integer page;
+    private Integer size;
+    private Long totalHits;
+    private List<InvoiceSearchHit> results;
+}
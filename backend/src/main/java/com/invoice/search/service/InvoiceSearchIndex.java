@@ -0,0 +1,509 @@
+package com.invoice.search.service;
+
+import com.invoice.common.AfterCommit;
+import com.invoice.customer.entity.Customer;
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.entity.InvoiceItem;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.search.dto.InvoiceSearchHit;
+import com.invoice.search.dto.InvoiceSearchResponse;
+import com.invoice.workload.ReportingWorkload;
+import com.invoice.workload.WorkloadRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over invoice titles, notes, item names/descriptions and customer names, one per
+ * business. A business's index is built from MySQL in the reporting bulkhead on its first search and then kept
+ * current by invoice creates and deletes on this node; indexes nobody searched for a while are dropped. Results are
+ * ranked with BM25 over field-weighted term frequencies.
+ */
+@Slf4j
+@Component
+public class InvoiceSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "the", "for", "of", "to", "in", "on",
+            "with", "that", "this", "from", "by", "invoice");
+
+    // Field weights: a match in the title or an item name says more than one buried in the notes
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float NUMBER_WEIGHT = 3f;
+    private static final float CUSTOMER_WEIGHT = 2f;
+    private static final float ITEM_NAME_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float NOTES_WEIGHT = 1f;
+
+    private static final int MAX_QUERY_TERMS = 32;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final InvoiceRepository invoiceRepository;
+    private final CustomerRepository customerRepository;
+    private final ReportingWorkload reportingWorkload;
+    private final Timer queryTimer;
+    private final long buildWaitMs;
+    private final long idleMs;
+    private final int maxBusinesses;
+
+    private final Map<Long, Entry> indexes = new ConcurrentHashMap<>();
+    // At most one build per business; updates committed while it runs are recorded on it and replayed
+    private final Map<Long, Build> builds = new ConcurrentHashMap<>();
+
+    public InvoiceSearchIndex(InvoiceRepository invoiceRepository, CustomerRepository customerRepository,
+            ReportingWorkload reportingWorkload, MeterRegistry meterRegistry,
+            @Value("${search.build-wait-ms:2000}") long buildWaitMs,
+            @Value("${search.index-idle-ms:1800000}") long idleMs,
+            @Value("${search.max-indexed-businesses:500}") int maxBusinesses) {
+        this.invoiceRepository = invoiceRepository;
+        this.customerRepository = customerRepository;
+        this.reportingWorkload = reportingWorkload;
+        this.buildWaitMs = buildWaitMs;
+        this.idleMs = idleMs;
+        this.maxBusinesses = maxBusinesses;
+        this.queryTimer = Timer.builder("search.query.latency")
+                .description("Time to rank one invoice search query")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("search.indexed.businesses", Tags.empty(), indexes);
+    }
+
+    public void indexAfterCommit(Invoice invoice, Customer customer) {
+        IndexedInvoice document = toDocument(invoice, customer != null ? customer.getName() : null);
+        AfterCommit.run(() -> apply(invoice.getBusinessId(), index -> index.add(document)));
+    }
+
+    public void removeAfterCommit(Long businessId, Long invoiceId) {
+        AfterCommit.run(() -> apply(businessId, index -> index.remove(invoiceId)));
+    }
+
+    /**
+     * Searches the business's index. A business without one gets it built in the reporting bulkhead; the search
+     * waits up to {@code search.build-wait-ms} for it and is answered with 503 and Retry-After after that.
+     */
+    public InvoiceSearchResponse search(Long businessId, String query, int page, int size) {
+        List<String> terms = tokenize(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (terms.isEmpty()) {
+            return new InvoiceSearchResponse(query, page, size, 0L, List.of());
+        }
+        BusinessIndex index = indexFor(businessId);
+        return queryTimer.record(() -> index.search(query, terms, page, size));
+    }
+
+    /**
+     * Builds the business's index afresh on the calling thread, which is expected to be a reporting worker. A build
+     * already running for the business is waited for instead, as it reads the same data.
+     */
+    public int rebuild(Long businessId) {
+        Build build = builds.computeIfAbsent(businessId, id -> new Build());
+        if (build.started.compareAndSet(false, true)) {
+            return runBuild(businessId, build).size();
+        }
+        return await(build, Long.MAX_VALUE).size();
+    }
+
+    // Idle indexes are dropped, then the least recently searched ones beyond the cap; a later search rebuilds them
+    @Scheduled(fixedDelayString = "${search.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMs;
+        indexes.entrySet().removeIf(entry -> entry.getValue().lastUsed < idleBefore);
+        evictExcess();
+    }
+
+    private void evictExcess() {
+        int excess = indexes.size() - maxBusinesses;
+        if (excess <= 0) {
+            return;
+        }
+        indexes.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .limit(excess)
+                .toList()
+                .forEach(entry -> indexes.remove(entry.getKey(), entry.getValue()));
+    }
+
+    private BusinessIndex indexFor(Long businessId) {
+        Entry entry = indexes.get(businessId);
+        if (entry != null) {
+            entry.lastUsed = System.currentTimeMillis();
+            return entry.index;
+        }
+        Build build = builds.computeIfAbsent(businessId, id -> new Build());
+        if (build.submitted.compareAndSet(false, true)) {
+            try {
+                reportingWorkload.submit("search.build", () -> build.started.compareAndSet(false, true)
+                        ? runBuild(businessId, build) : null);
+            } catch (WorkloadRejectedException e) {
+                // Unless a rebuild already took the build over, it will never run; let its waiters know
+                if (build.started.compareAndSet(false, true)) {
+                    builds.remove(businessId, build);
+                    build.result.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        return await(build, buildWaitMs);
+    }
+
+    private BusinessIndex runBuild(Long businessId, Build build) {
+        try {
+            BusinessIndex index = build(businessId);
+            synchronized (build) {
+                build.pending.forEach(update -> update.accept(index));
+                build.installed = true;
+                indexes.put(businessId, new Entry(index));
+            }
+            evictExcess();
+            build.result.complete(index);
+            return index;
+        } catch (RuntimeException e) {
+            build.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            builds.remove(businessId, build);
+        }
+    }
+
+    // A build registers before it reads, so an update committed after that is either recorded on it or finds the
+    // installed index; applying one twice is harmless, as add replaces and remove ignores a missing invoice
+    private void apply(Long businessId, Consumer<BusinessIndex> update) {
+        Build build = builds.get(businessId);
+        if (build != null) {
+            build.record(update);
+        }
+        Entry entry = indexes.get(businessId);
+        if (entry != null) {
+            update.accept(entry.index);
+        }
+    }
+
+    private static BusinessIndex await(Build build, long timeoutMs) {
+        try {
+            return build.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new WorkloadRejectedException("The search index is still being built. Please try again shortly.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Search index build failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the search index", e);
+        }
+    }
+
+    private BusinessIndex build(Long businessId) {
+        long started = System.nanoTime();
+        Map<Long, String> customerNames = customerRepository.findByBusinessId(businessId).stream()
+                .collect(Collectors.toMap(Customer::getId, Customer::getName));
+
+        BusinessIndex index = new BusinessIndex();
+        for (Invoice invoice : invoiceRepository.findWithItemsByBusinessId(businessId)) {
+            String customerName = invoice.getCustomerId() != null ? customerNames.get(invoice.getCustomerId()) : null;
+            index.add(toDocument(invoice, customerName));
+        }
+        log.info("Built search index for business {} with {} invoices in {}ms", businessId, index.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return index;
+    }
+
+    private IndexedInvoice toDocument(Invoice invoice, String customerName) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        length += addField(terms, invoice.getInvoiceTitle(), TITLE_WEIGHT);
+        length += addField(terms, invoice.getInvoiceNumber(), NUMBER_WEIGHT);
+        length += addField(terms, customerName, CUSTOMER_WEIGHT);
+        length += addField(terms, invoice.getNotes(), NOTES_WEIGHT);
+        for (InvoiceItem item : invoice.getItems()) {
+            length += addField(terms, item.getItemName(), ITEM_NAME_WEIGHT);
+            length += addField(terms, item.getItemDescription(), DESCRIPTION_WEIGHT);
+        }
+        Document document = new Document(invoice.getId(), invoice.getInvoiceNumber(), invoice.getInvoiceTitle(),
+                customerName, invoice.getInvoiceDate(), invoice.getTotalAmount(), Math.max(length, 1f));
+        return new IndexedInvoice(document, terms);
+    }
+
+    private static float addField(Map<String, Float> terms, String text, float weight) {
+        float length = 0;
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String raw : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (raw.length() < 2 || STOP_WORDS.contains(raw)) {
+                continue;
+            }
+            tokens.add(normalize(raw));
+        }
+        return tokens;
+    }
+
+    // Light plural folding so "rods" finds "rod" and "batteries" finds "battery"
+    private static String normalize(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")
+                && !Character.isDigit(token.charAt(0))) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    private record Document(Long invoiceId, String invoiceNumber, String invoiceTitle, String customerName,
+            LocalDate invoiceDate, BigDecimal totalAmount, float length) {
+    }
+
+    // The term map is only needed while writing postings, so it isn't kept on the stored document
+    private record IndexedInvoice(Document document, Map<String, Float> terms) {
+    }
+
+    private static final class Entry {
+
+        private final BusinessIndex index;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Entry(BusinessIndex index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Build {
+
+        private final CompletableFuture<BusinessIndex> result = new CompletableFuture<>();
+        // Queued in the bulkhead by a search; started by whichever thread runs it first
+        private final AtomicBoolean submitted = new AtomicBoolean();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final List<Consumer<BusinessIndex>> pending = new ArrayList<>();
+        private boolean installed;
+
+        private synchronized void record(Consumer<BusinessIndex> update) {
+            if (!installed) {
+                pending.add(update);
+            }
+        }
+    }
+
+    /**
+     * Documents are addressed by a dense ordinal so postings can be plain int/float arrays. Deletes leave a
+     * tombstone that queries skip; once tombstones pile up the postings are compacted in place.
+     */
+    private static final class BusinessIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+        private double totalLength;
+        private int deleted;
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return ordinals.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void add(IndexedInvoice indexed) {
+            Document document = indexed.document();
+            lock.writeLock().lock();
+            try {
+                removeLocked(document.invoiceId());
+                int ordinal = documents.size();
+                documents.add(document);
+                ordinals.put(document.invoiceId(), ordinal);
+                indexed.terms().forEach((term, weight) ->
+                        postings.computeIfAbsent(term, key -> new Postings()).add(ordinal, weight));
+                totalLength += document.length();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Long invoiceId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(invoiceId);
+                if (deleted > 1024 && deleted > ordinals.size() / 4) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long invoiceId) {
+            Integer ordinal = ordinals.remove(invoiceId);
+            if (ordinal != null) {
+                Document document = documents.set(ordinal, null);
+                totalLength -= document.length();
+                deleted++;
+            }
+        }
+
+        private void compact() {
+            int[] remap = new int[documents.size()];
+            List<Document> live = new ArrayList<>(ordinals.size());
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                remap[i] = document != null ? live.size() : -1;
+                if (document != null) {
+                    live.add(document);
+                    ordinals.put(document.invoiceId(), remap[i]);
+                }
+            }
+            documents.clear();
+            documents.addAll(live);
+
+            Iterator<Postings> iterator = postings.values().iterator();
+            while (iterator.hasNext()) {
+                Postings list = iterator.next();
+                list.remap(remap);
+                if (list.size == 0) {
+                    iterator.remove();
+                }
+            }
+            deleted = 0;
+        }
+
+        private InvoiceSearchResponse search(String query, List<String> terms, int page, int size) {
+            lock.readLock().lock();
+            try {
+                int documentCount = Math.max(ordinals.size(), 1);
+                float averageLength = (float) (totalLength / documentCount);
+
+                float[] scores = new float[documents.size()];
+                byte[] matchedTerms = new byte[documents.size()];
+                int[] candidates = new int[16];
+                int candidateCount = 0;
+
+                for (String term : terms) {
+                    Postings list = postings.get(term);
+                    if (list == null) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (documentCount - list.size + 0.5) / (list.size + 0.5));
+                    for (int i = 0; i < list.size; i++) {
+                        int ordinal = list.ordinals[i];
+                        Document document = documents.get(ordinal);
+                        if (document == null) {
+                            continue;
+                        }
+                        float tf = list.weights[i];
+                        float norm = K1 * (1 - B + B * document.length() / averageLength);
+                        if (matchedTerms[ordinal] == 0) {
+                            if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                            }
+                            candidates[candidateCount++] = ordinal;
+                        }
+                        scores[ordinal] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                        matchedTerms[ordinal]++;
+                    }
+                }
+
+                // Invoices matching more of the query rank above ones that only match a single word strongly
+                for (int i = 0; i < candidateCount; i++) {
+                    int ordinal = candidates[i];
+                    scores[ordinal] *= (float) matchedTerms[ordinal] / terms.size();
+                }
+
+                int wanted = (page + 1) * size;
+                PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(wanted, Math.max(candidateCount, 1)) + 1,
+                        (a, b) -> Float.compare(scores[a], scores[b]));
+                for (int i = 0; i < candidateCount; i++) {
+                    top.offer(candidates[i]);
+                    if (top.size() > wanted) {
+                        top.poll();
+                    }
+                }
+
+                List<Integer> ranked = new ArrayList<>(top);
+                ranked.sort((a, b) -> Float.compare(scores[b], scores[a]));
+                List<InvoiceSearchHit> hits = ranked.stream()
+                        .skip((long) page * size)
+                        .map(ordinal -> {
+                            Document document = documents.get(ordinal);
+                            return new InvoiceSearchHit(document.invoiceId(), document.invoiceNumber(),
+                                    document.invoiceTitle(), document.customerName(), document.invoiceDate(),
+                                    document.totalAmount(), (double) scores[ordinal]);
+                        })
+                        .collect(Collectors.toList());
+                return new InvoiceSearchResponse(query, page, size, (long) candidateCount, hits);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        private void add(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                int capacity = size + (size >> 1) + 1;
+                ordinals = Arrays.copyOf(ordinals, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            ordinals[size] = ordinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        private void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = remap[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    weights[kept] = weights[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.invoice.search.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.search.dto.InvoiceSearchResponse;
+import com.invoice.workload.ReportingWorkload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+@Service
+public class InvoiceSearchService {
+
+    private final InvoiceSearchIndex searchIndex;
+    private final ReportingWorkload reportingWorkload;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final int maxPageSize;
+
+    public InvoiceSearchService(InvoiceSearchIndex searchIndex, ReportingWorkload reportingWorkload,
+            BusinessRepository businessRepository, UserRepository userRepository,
+            @Value("${search.max-page-size:100}") int maxPageSize) {
+        this.searchIndex = searchIndex;
+        this.reportingWorkload = reportingWorkload;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public InvoiceSearchResponse searchInvoices(String query, int page, int size) {
+        if (page < 0) {
+            throw new ValidationException("Page must not be negative");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new ValidationException("Size must be between 1 and " + maxPageSize);
+        }
+        return searchIndex.search(getBusinessIdForCurrentUser(), query, page, size);
+    }
+
+    public int rebuildIndex() {
+        // Loads every invoice of the business with its items, so it waits its turn with the other heavy jobs
+        Long businessId = getBusinessIdForCurrentUser();
+        return reportingWorkload.run("search.rebuild", () -> searchIndex.rebuild(businessId));
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
@@ -3,12 +3,13 @@ package com.invoice.security;
 import com.invoice.auth.repository.UserRepository;
 import com.invoice.auth.entity.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -27,4 +28,18 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .roles(user.getRole())
                 .build();
     }
+
+    // Called after a successful login whose stored hash was made at a lower BCrypt cost than configured
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPasswordHash) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPasswordHash(newPasswordHash);
+        userRepository.save(user);
+
+        return org.springframework.security.core.userdetails.User
+                .withUserDetails(userDetails)
+                .password(newPasswordHash)
+                .build();
+    }
 }
@@ -16,12 +16,22 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Browsers' EventSource cannot set headers, so only the live event stream reads the token from the query string
+    private static final String QUERY_TOKEN_PATH = "/api/live/events";
+
+    // Set on authenticated requests for responses that outlive the request, so they can end with the token
+    public static final String TOKEN_FAMILY_ATTRIBUTE = "com.invoice.security.tokenFamily";
+    public static final String TOKEN_EXPIRES_AT_ATTRIBUTE = "com.invoice.security.tokenExpiresAt";
+
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationCache revocationCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+            TokenRevocationCache revocationCache) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revocationCache = revocationCache;
     }
 
     @Override
@@ -35,9 +45,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
             username = jwtUtil.extractUsername(token);
+        } else if (QUERY_TOKEN_PATH.equals(request.getRequestURI()) && request.getParameter("token") != null) {
+            token = request.getParameter("token");
+            username = jwtUtil.extractUsername(token);
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !revocationCache.isRevoked(jwtUtil.extractFamilyId(token))) {
             UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
             if (jwtUtil.validateToken(token, userDetails.getUsername())) {
@@ -45,6 +59,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(TOKEN_FAMILY_ATTRIBUTE, jwtUtil.extractFamilyId(token));
+                request.setAttribute(TOKEN_EXPIRES_AT_ATTRIBUTE, jwtUtil.extractExpiration(token).getTime());
             }
         }
 
@@ -27,6 +27,11 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Refresh token family the access token was issued with; null for tokens from before refresh tokens
+    public String extractFamilyId(String token) {
+        return extractClaim(token, claims -> claims.get("fid", String.class));
+    }
+
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
@@ -53,10 +58,11 @@ public class JwtUtil {
         return (extractedUsername.equals(username) && !isTokenExpired(token));
     }
 
-    public String generateToken(String username, Long userId, String role) {
+    public String generateToken(String username, Long userId, String role, String familyId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
+        claims.put("fid", familyId);
         return createToken(claims, username);
     }
 
@@ -0,0 +1,8 @@
+package com.invoice.security;
+
+/**
+ * Published by {@link TokenRevocationCache} when a token family is revoked, for state that outlives a single
+ * request, such as open event streams.
+ */
+public record TokenFamilyRevokedEvent(String familyId) {
+}
@@ -0,0 +1,44 @@
+package com.invoice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token families revoked by logout or refresh-token reuse. Access tokens carry their family, so one lookup here
+ * stops them right away instead of when they expire. An entry is only needed for as long as an access token from
+ * before the revocation could still be valid. Revocations are per node; on other nodes the short access token
+ * lifetime bounds how long a revoked session lasts.
+ */
+@Component
+public class TokenRevocationCache {
+
+    private final long accessTokenMs;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    public TokenRevocationCache(@Value("${jwt.expiration}") long accessTokenMs,
+            ApplicationEventPublisher eventPublisher) {
+        this.accessTokenMs = accessTokenMs;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void revoke(String familyId) {
+        revokedUntil.put(familyId, System.currentTimeMillis() + accessTokenMs);
+        eventPublisher.publishEvent(new TokenFamilyRevokedEvent(familyId));
+    }
+
+    public boolean isRevoked(String familyId) {
+        return familyId != null && revokedUntil.containsKey(familyId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation-sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        revokedUntil.values().removeIf(until -> until <= now);
+    }
+}
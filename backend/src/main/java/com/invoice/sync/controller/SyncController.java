@@ -0,0 +1,23 @@
+package com.invoice.sync.controller;
+
+import com.invoice.sync.dto.ChangeFeedResponse;
+import com.invoice.sync.service.ChangeFeedService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public SyncController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeFeedResponse> getChanges(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(changeFeedService.getChanges(cursor, size));
+    }
+}
@@ -0,0 +1,23 @@
+package com.invoice.sync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latest known state of one changed record. Deleted records are tombstones with no data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEntry {
+
+    private EntityType type;
+    private Long id;
+    private Boolean deleted;
+    private Object data;
+
+    public enum EntityType {
+        INVOICE, CUSTOMER, PAYMENT
+    }
+}
@@ -0,0 +1,20 @@
+package com.invoice.sync.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedResponse {
+
+    // Pass back as "cursor" on the next call
+    private String cursor;
+    private Boolean hasMore;
+    // True when the client has no usable cursor and must load the full lists before polling from this cursor
+    private Boolean resyncRequired;
+    private List<ChangeEntry> changes;
+}
@@ -0,0 +1,217 @@
+package com.invoice.sync.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.customer.entity.Customer;
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.customer.service.CustomerService;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.invoice.service.InvoiceService;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.repository.OutboxEventRepository;
+import com.invoice.sync.dto.ChangeEntry;
+import com.invoice.sync.dto.ChangeEntry.EntityType;
+import com.invoice.sync.dto.ChangeFeedResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves a per-business change feed from the outbox event log. A page of events is collapsed to one entry per
+ * record carrying its current state (or a tombstone), so a client's payload grows with what changed rather than with
+ * the size of its data.
+ *
+ * <p>Outbox ids come from an auto-increment column and can commit out of order, so a page stops before any event
+ * younger than the commit grace; otherwise a slower transaction holding a lower id could land behind the cursor.
+ * Outbox writers roll back rather than commit an event later than outbox.max-commit-delay-ms, which is kept below the
+ * grace, and event ages are read off the database clock, which stamped them.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final String CURSOR_PREFIX = "c1.";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final CustomerRepository customerRepository;
+    private final InvoiceService invoiceService;
+    private final CustomerService customerService;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+    private final long commitGraceMs;
+
+    public ChangeFeedService(OutboxEventRepository outboxEventRepository, InvoiceRepository invoiceRepository,
+            CustomerRepository customerRepository, InvoiceService invoiceService, CustomerService customerService,
+            BusinessRepository businessRepository, UserRepository userRepository, ObjectMapper objectMapper,
+            @Value("${sync.max-page-size:500}") int maxPageSize,
+            @Value("${sync.commit-grace-ms:5000}") long commitGraceMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.customerRepository = customerRepository;
+        this.invoiceService = invoiceService;
+        this.customerService = customerService;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        this.commitGraceMs = commitGraceMs;
+    }
+
+    @Transactional(readOnly = true)
+    public ChangeFeedResponse getChanges(String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new ValidationException("Size must be between 1 and " + maxPageSize);
+        }
+        Long businessId = getBusinessIdForCurrentUser();
+        LocalDateTime settledBefore = outboxEventRepository.databaseNow().minusNanos(commitGraceMs * 1_000_000);
+
+        if (cursor == null || cursor.isBlank()) {
+            // Start from the settled head; events after it are replayed on the first poll, and replays are harmless
+            Long head = outboxEventRepository.findLatestId(businessId, settledBefore);
+            return new ChangeFeedResponse(encodeCursor(head != null ? head : 0L), false, true, List.of());
+        }
+
+        long afterId = decodeCursor(cursor);
+        List<OutboxEvent> events = outboxEventRepository.findByBusinessIdAndIdGreaterThanOrderByIdAsc(
+                businessId, afterId, PageRequest.of(0, size + 1));
+
+        boolean hasMore = events.size() > size;
+        List<OutboxEvent> page = new ArrayList<>(Math.min(events.size(), size));
+        for (OutboxEvent event : events.subList(0, Math.min(events.size(), size))) {
+            if (event.getCreatedAt().isAfter(settledBefore)) {
+                hasMore = false; // Not settled yet - the client picks it up on its next poll
+                break;
+            }
+            page.add(event);
+        }
+
+        long nextId = page.isEmpty() ? afterId : page.get(page.size() - 1).getId();
+        return new ChangeFeedResponse(encodeCursor(nextId), hasMore, false, collapse(businessId, page));
+    }
+
+    private List<ChangeEntry> collapse(Long businessId, List<OutboxEvent> events) {
+        // Keyed by type and id; re-inserting moves a record behind everything that changed before its last change
+        Map<String, ChangeEntry> changes = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            switch (event.getEventType()) {
+                case INVOICE_DELETED -> put(changes, new ChangeEntry(EntityType.INVOICE, event.getAggregateId(), true, null));
+                case INVOICE_CREATED, INVOICE_PAID, INVOICE_OVERDUE ->
+                        put(changes, new ChangeEntry(EntityType.INVOICE, event.getAggregateId(), false, null));
+                case PAYMENT_ADDED, PAYMENT_DELETED -> {
+                    JsonNode payment = readPayload(event);
+                    boolean deleted = event.getEventType() == OutboxEvent.EventType.PAYMENT_DELETED;
+                    put(changes, new ChangeEntry(EntityType.PAYMENT, payment.path("id").asLong(), deleted,
+                            deleted ? null : payment));
+                    // A payment also changes the invoice's paid and due amounts
+                    put(changes, new ChangeEntry(EntityType.INVOICE, event.getAggregateId(), false, null));
+                }
+                case CUSTOMER_CREATED ->
+                        put(changes, new ChangeEntry(EntityType.CUSTOMER, event.getAggregateId(), false, null));
+            }
+        }
+
+        Map<Long, Invoice> invoices = invoiceRepository.findAllById(idsToLoad(changes, EntityType.INVOICE)).stream()
+                .filter(invoice -> invoice.getBusinessId().equals(businessId))
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+        Map<Long, Customer> customers = customerRepository.findAllById(idsToLoad(changes, EntityType.CUSTOMER)).stream()
+                .filter(customer -> customer.getBusinessId().equals(businessId))
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+
+        for (ChangeEntry change : changes.values()) {
+            if (change.getDeleted() || change.getData() != null) {
+                continue;
+            }
+            Object data = switch (change.getType()) {
+                case INVOICE -> {
+                    Invoice invoice = invoices.get(change.getId());
+                    yield invoice != null ? invoiceService.convertToResponse(invoice) : null;
+                }
+                case CUSTOMER -> {
+                    Customer customer = customers.get(change.getId());
+                    yield customer != null ? customerService.convertToResponse(customer) : null;
+                }
+                case PAYMENT -> null;
+            };
+            // Gone since the event was written - its delete event is further along the feed
+            change.setDeleted(data == null);
+            change.setData(data);
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    private static void put(Map<String, ChangeEntry> changes, ChangeEntry change) {
+        String key = change.getType() + ":" + change.getId();
+        changes.remove(key);
+        changes.put(key, change);
+    }
+
+    private static Set<Long> idsToLoad(Map<String, ChangeEntry> changes, EntityType type) {
+        return changes.values().stream()
+                .filter(change -> change.getType() == type && !change.getDeleted())
+                .map(ChangeEntry::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private JsonNode readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox event " + event.getId() + " has an unreadable payload", e);
+        }
+    }
+
+    private static String encodeCursor(long eventId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + eventId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                long eventId = Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+                if (eventId >= 0) {
+                    return eventId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the error below; NumberFormatException is an IllegalArgumentException too
+        }
+        throw new ValidationException("Invalid sync cursor");
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
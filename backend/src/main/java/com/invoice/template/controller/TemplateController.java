@@ -1,6 +1,7 @@
 package com.invoice.template.controller;
 
 import com.invoice.template.dto.TemplateAssignmentRequest;
+import com.invoice.template.dto.TemplatePopularityResponse;
 import com.invoice.template.dto.TemplateRequest;
 import com.invoice.template.dto.TemplateResponse;
 import com.invoice.template.entity.BusinessTemplateSettings;
@@ -25,6 +26,11 @@ public class TemplateController {
         return ResponseEntity.ok(templateService.getAllSystemTemplates());
     }
 
+    @GetMapping("/system/popular")
+    public ResponseEntity<List<TemplatePopularityResponse>> getPopularSystemTemplates() {
+        return ResponseEntity.ok(templateService.getPopularSystemTemplates());
+    }
+
     @PostMapping("/system/assign")
     public ResponseEntity<BusinessTemplateSettings> assignSystemTemplate(@RequestBody TemplateAssignmentRequest request) {
         return ResponseEntity.ok(templateService.assignSystemTemplate(request.getBusinessId(), request.getTemplateId(), request.getColorHex()));
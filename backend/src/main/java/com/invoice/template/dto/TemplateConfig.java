@@ -23,4 +23,9 @@ public class TemplateConfig {
     private Boolean showNotes = true;
     private Boolean showDueDate = true;
     private Boolean showItemDescription = true;
+
+    public TemplateConfig copy() {
+        return new TemplateConfig(showCustomerEmail, showCustomerPhone, showCustomerLocation, showDiscount,
+                showPaymentInfo, showLogo, showSignature, showQrCode, showNotes, showDueDate, showItemDescription);
+    }
 }
@@ -0,0 +1,16 @@
+package com.invoice.template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplatePopularityResponse {
+
+    private Long id;
+    private String name;
+    private Long usageCount;
+    private String previewImageUrl;
+}
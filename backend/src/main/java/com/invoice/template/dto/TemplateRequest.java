@@ -11,6 +11,8 @@ public class TemplateRequest {
 
     private Long businessId;
     private String name;
+    // Either a typed config or its JSON form; the typed one wins when both are sent
+    private TemplateConfig config;
     private String configJson;
     private Boolean isDefault;
 }
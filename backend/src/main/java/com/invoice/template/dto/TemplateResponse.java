@@ -14,6 +14,7 @@ public class TemplateResponse {
     private Long id;
     private Long businessId;
     private String name;
+    private TemplateConfig config;
     private String configJson;
     private Boolean isDefault;
     private LocalDateTime createdAt;
@@ -0,0 +1,14 @@
+package com.invoice.template.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateVersion {
+
+    private Long id;
+    private Long version;
+}
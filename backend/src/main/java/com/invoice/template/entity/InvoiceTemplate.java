@@ -9,7 +9,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoice_templates")
+@Table(name = "invoice_templates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_invoice_templates_default", columnNames = "default_business_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +32,17 @@ public class InvoiceTemplate {
     @Column(name = "is_default", nullable = false)
     private Boolean isDefault = false;
 
+    // Maintained by MySQL: the business id on the default template, NULL on all others. The unique key on it
+    // allows at most one default per business.
+    @Column(name = "default_business_id", insertable = false, updatable = false,
+            columnDefinition = "BIGINT AS (CASE WHEN is_default THEN business_id ELSE NULL END) STORED")
+    private Long defaultBusinessId;
+
+    // Existing rows start at 0; bumped on every update and used to key the parsed-config cache
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -1,7 +1,11 @@
 package com.invoice.template.repository;
 
+import com.invoice.template.dto.TemplateVersion;
 import com.invoice.template.entity.InvoiceTemplate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +16,19 @@ public interface InvoiceTemplateRepository extends JpaRepository<InvoiceTemplate
 
     List<InvoiceTemplate> findByBusinessId(Long businessId);
 
-    Optional<InvoiceTemplate> findByBusinessIdAndIsDefaultTrue(Long businessId);
+    // Version lookups let cached templates be checked without reading the config: one by primary key, the other
+    // through uk_invoice_templates_default
+    @Query("select new com.invoice.template.dto.TemplateVersion(t.id, t.version) from InvoiceTemplate t "
+            + "where t.id = :id")
+    Optional<TemplateVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select new com.invoice.template.dto.TemplateVersion(t.id, t.version) from InvoiceTemplate t "
+            + "where t.defaultBusinessId = :businessId")
+    Optional<TemplateVersion> findDefaultVersion(@Param("businessId") Long businessId);
+
+    // Goes through uk_invoice_templates_default, so it touches (and locks) at most the one current default
+    @Modifying(flushAutomatically = true)
+    @Query("update InvoiceTemplate t set t.isDefault = false, t.version = t.version + 1 "
+            + "where t.defaultBusinessId = :businessId and (:keepId is null or t.id <> :keepId)")
+    int clearDefault(@Param("businessId") Long businessId, @Param("keepId") Long keepId);
 }
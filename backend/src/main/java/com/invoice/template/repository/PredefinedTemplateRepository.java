@@ -2,8 +2,16 @@ package com.invoice.template.repository;
 
 import com.invoice.template.entity.PredefinedTemplate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PredefinedTemplateRepository extends JpaRepository<PredefinedTemplate, Long> {
+
+    // Relative update, so concurrent flushes from several nodes add up instead of overwriting each other
+    @Modifying
+    @Query("update PredefinedTemplate t set t.usageCount = t.usageCount + :delta where t.id = :id")
+    int incrementUsageCount(@Param("id") Long id, @Param("delta") long delta);
 }
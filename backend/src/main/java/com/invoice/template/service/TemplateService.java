@@ -1,36 +1,98 @@
 package com.invoice.template.service;
 
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.CoercionAction;
+import com.fasterxml.jackson.databind.cfg.CoercionInputShape;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import com.invoice.common.AfterCommit;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.template.dto.TemplateConfig;
+import com.invoice.template.dto.TemplatePopularityResponse;
 import com.invoice.template.dto.TemplateRequest;
 import com.invoice.template.dto.TemplateResponse;
+import com.invoice.template.dto.TemplateVersion;
 import com.invoice.template.entity.BusinessTemplateSettings;
 import com.invoice.template.entity.InvoiceTemplate;
 import com.invoice.template.entity.PredefinedTemplate;
 import com.invoice.template.repository.BusinessTemplateSettingsRepository;
 import com.invoice.template.repository.InvoiceTemplateRepository;
 import com.invoice.template.repository.PredefinedTemplateRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class TemplateService {
 
+    // Each collision lets at least one switch through, so a handful of simultaneous switches all get theirs in
+    private static final int MAX_DEFAULT_SWITCH_ATTEMPTS = 6;
+    private static final long DEFAULT_SWITCH_BACKOFF_MS = 10;
+    private static final long MAX_DEFAULT_SWITCH_BACKOFF_MS = 200;
+
     private final InvoiceTemplateRepository templateRepository;
     private final PredefinedTemplateRepository predefinedTemplateRepository;
     private final BusinessTemplateSettingsRepository businessTemplateSettingsRepository;
+    private final TemplateUsageCounter usageCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper configMapper;
+
+    // Parsed templates by id; an entry is only replaced by a newer version, so a slow writer can't roll it back.
+    // Reads check the row's version first, so edits made through other nodes are never served stale
+    private final Map<Long, CachedTemplate> templatesById = new ConcurrentHashMap<>();
+
+    public TemplateService(InvoiceTemplateRepository templateRepository,
+            PredefinedTemplateRepository predefinedTemplateRepository,
+            BusinessTemplateSettingsRepository businessTemplateSettingsRepository, TemplateUsageCounter usageCounter,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+        this.templateRepository = templateRepository;
+        this.predefinedTemplateRepository = predefinedTemplateRepository;
+        this.businessTemplateSettingsRepository = businessTemplateSettingsRepository;
+        this.usageCounter = usageCounter;
+        this.transactionTemplate = transactionTemplate;
+
+        // Strict reader for stored configs: unknown keys and non-boolean values are errors, missing or null
+        // keys keep their defaults
+        this.configMapper = objectMapper.copy()
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setDefaultSetterInfo(JsonSetter.Value.forValueNulls(Nulls.SKIP));
+        this.configMapper.coercionConfigFor(LogicalType.Boolean)
+                .setCoercion(CoercionInputShape.String, CoercionAction.Fail)
+                .setCoercion(CoercionInputShape.Integer, CoercionAction.Fail);
+    }
 
+    @Transactional(readOnly = true)
     public List<PredefinedTemplate> getAllSystemTemplates() {
         return predefinedTemplateRepository.findAll();
     }
 
+    public List<TemplatePopularityResponse> getPopularSystemTemplates() {
+        return usageCounter.getPopularity();
+    }
+
     @Transactional
     public BusinessTemplateSettings assignSystemTemplate(Long businessId, Long templateId, String colorHex) {
         PredefinedTemplate template = predefinedTemplateRepository.findById(templateId)
-                .orElseThrow(() -> new RuntimeException("Predefined Template not found"));
+                .orElseThrow(() -> new NotFoundException("Predefined Template not found"));
 
         BusinessTemplateSettings settings = businessTemplateSettingsRepository.findByBusinessId(businessId)
                 .orElse(new BusinessTemplateSettings());
@@ -43,91 +105,210 @@ public class TemplateService {
         settings.setColorHex(colorHex);
 
         if (isNewSelection) {
-            template.setUsageCount(template.getUsageCount() + 1);
-            predefinedTemplateRepository.save(template);
+            // A selection that rolls back is not counted
+            AfterCommit.run(() -> usageCounter.increment(templateId));
         }
 
         return businessTemplateSettingsRepository.save(settings);
     }
 
+    @Transactional(readOnly = true)
     public BusinessTemplateSettings getSystemTemplateSettings(Long businessId) {
         return businessTemplateSettingsRepository.findByBusinessId(businessId)
                 .orElse(null);
     }
 
-    @Transactional
     public TemplateResponse createTemplate(TemplateRequest request) {
-        // If this is set as default, unset all other defaults for this business
-        if (Boolean.TRUE.equals(request.getIsDefault())) {
-            unsetDefaultTemplates(request.getBusinessId());
-        }
+        TemplateConfig config = parseRequestConfig(request);
+        return inDefaultSwitchTransaction(() -> {
+            // If this is set as default, unset the current default for this business
+            if (Boolean.TRUE.equals(request.getIsDefault())) {
+                unsetDefaultTemplate(request.getBusinessId(), null);
+            }
 
-        InvoiceTemplate template = new InvoiceTemplate();
-        template.setBusinessId(request.getBusinessId());
-        template.setName(request.getName());
-        template.setConfigJson(request.getConfigJson());
-        template.setIsDefault(request.getIsDefault() != null ? request.getIsDefault() : false);
+            InvoiceTemplate template = new InvoiceTemplate();
+            template.setBusinessId(request.getBusinessId());
+            template.setName(request.getName());
+            template.setConfigJson(writeConfig(config));
+            template.setIsDefault(request.getIsDefault() != null ? request.getIsDefault() : false);
 
-        InvoiceTemplate saved = templateRepository.save(template);
-        return mapToResponse(saved);
+            InvoiceTemplate saved = templateRepository.save(template);
+            CachedTemplate cached = CachedTemplate.of(saved, config);
+            cacheAfterCommit(cached);
+            return cached.toResponse();
+        });
     }
 
+    @Transactional(readOnly = true)
     public List<TemplateResponse> getTemplatesByBusiness(Long businessId) {
         return templateRepository.findByBusinessId(businessId)
                 .stream()
-                .map(this::mapToResponse)
+                .map(template -> toCached(template).toResponse())
                 .collect(Collectors.toList());
     }
 
     public TemplateResponse getDefaultTemplate(Long businessId) {
-        return templateRepository.findByBusinessIdAndIsDefaultTrue(businessId)
-                .map(this::mapToResponse)
+        return templateRepository.findDefaultVersion(businessId)
+                .map(version -> current(version).toResponse())
                 .orElse(null);
     }
 
     public TemplateResponse getTemplateById(Long id) {
-        InvoiceTemplate template = templateRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Template not found"));
-        return mapToResponse(template);
+        Optional<TemplateVersion> version = templateRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            templatesById.remove(id);
+            throw new NotFoundException("Template not found");
+        }
+        return current(version.get()).toResponse();
     }
 
-    @Transactional
     public TemplateResponse updateTemplate(Long id, TemplateRequest request) {
-        InvoiceTemplate template = templateRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Template not found"));
+        TemplateConfig config = parseRequestConfig(request);
+        return inDefaultSwitchTransaction(() -> {
+            InvoiceTemplate template = templateRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Template not found"));
 
-        // If setting as default, unset other defaults
-        if (Boolean.TRUE.equals(request.getIsDefault()) && !template.getIsDefault()) {
-            unsetDefaultTemplates(template.getBusinessId());
-        }
+            // If setting as default, unset the other default
+            if (Boolean.TRUE.equals(request.getIsDefault()) && !template.getIsDefault()) {
+                unsetDefaultTemplate(template.getBusinessId(), id);
+            }
 
-        template.setName(request.getName());
-        template.setConfigJson(request.getConfigJson());
-        template.setIsDefault(request.getIsDefault() != null ? request.getIsDefault() : false);
+            template.setName(request.getName());
+            template.setConfigJson(writeConfig(config));
+            template.setIsDefault(request.getIsDefault() != null ? request.getIsDefault() : false);
 
-        InvoiceTemplate updated = templateRepository.save(template);
-        return mapToResponse(updated);
+            // Flushed so the bumped version is known before it goes into the cache
+            InvoiceTemplate updated = templateRepository.saveAndFlush(template);
+            CachedTemplate cached = CachedTemplate.of(updated, config);
+            cacheAfterCommit(cached);
+            return cached.toResponse();
+        });
     }
 
     @Transactional
     public void deleteTemplate(Long id) {
-        templateRepository.deleteById(id);
+        templateRepository.findById(id).ifPresent(template -> {
+            templateRepository.delete(template);
+            AfterCommit.run(() -> templatesById.remove(id));
+        });
+    }
+
+    // Bumps the old default's version, which is what retires its cached entry
+    private void unsetDefaultTemplate(Long businessId, Long keepId) {
+        templateRepository.clearDefault(businessId, keepId);
+    }
+
+    /**
+     * Runs a create/update that may switch the default template. Two concurrent switches for the same business
+     * can both find no default to clear and then collide on uk_invoice_templates_default (or deadlock on its gap
+     * lock); the loser is rolled back and simply run again, after which it sees the winner's default and clears it.
+     * An update that lost the row to a concurrent update is run again too: the request replaces the whole template,
+     * so applying it to the newer row is what it would have done a moment later. Retries back off with jitter, so
+     * the colliding requests spread out instead of meeting again; a collision that keeps happening is reported as 409.
+     */
+    private TemplateResponse inDefaultSwitchTransaction(Supplier<TemplateResponse> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException
+                     | OptimisticLockingFailureException e) {
+                if (attempt >= MAX_DEFAULT_SWITCH_ATTEMPTS) {
+                    throw new ConflictException("Template was changed by another request, please try again", e);
+                }
+                log.debug("Template update collided, retrying (attempt {})", attempt + 1);
+                backOff(attempt);
+            }
+        }
+    }
+
+    // Full jitter on an exponentially growing, capped window
+    private static void backOff(int attempt) {
+        long window = Math.min(MAX_DEFAULT_SWITCH_BACKOFF_MS, DEFAULT_SWITCH_BACKOFF_MS << (attempt - 1));
+        try {
+            Thread.sleep(window / 2 + ThreadLocalRandom.current().nextLong(window / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Template was changed by another request, please try again", e);
+        }
     }
 
-    private void unsetDefaultTemplates(Long businessId) {
-        List<InvoiceTemplate> templates = templateRepository.findByBusinessId(businessId);
-        templates.forEach(t -> t.setIsDefault(false));
-        templateRepository.saveAll(templates);
+    private TemplateConfig parseRequestConfig(TemplateRequest request) {
+        // A typed config also goes through the strict reader, so nulls in it fall back to defaults the same way
+        String json = request.getConfig() != null ? writeConfig(request.getConfig()) : request.getConfigJson();
+        if (json == null || json.isBlank()) {
+            return new TemplateConfig();
+        }
+        try {
+            TemplateConfig config = configMapper.readValue(json, TemplateConfig.class);
+            if (config == null) {
+                throw new ValidationException("Template config must be a JSON object");
+            }
+            return config;
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Invalid template config: " + e.getOriginalMessage());
+        }
+    }
+
+    private String writeConfig(TemplateConfig config) {
+        try {
+            return configMapper.writeValueAsString(config);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Template config could not be serialized", e);
+        }
+    }
+
+    // Reuses the parsed config when the cached entry is for the same version of the row
+    private CachedTemplate toCached(InvoiceTemplate template) {
+        CachedTemplate cached = templatesById.get(template.getId());
+        if (cached != null && cached.version().equals(template.getVersion())) {
+            return cached;
+        }
+        TemplateConfig config;
+        try {
+            config = configMapper.readValue(template.getConfigJson(), TemplateConfig.class);
+        } catch (JsonProcessingException e) {
+            // Rows saved before configs were validated - served as raw JSON only
+            log.warn("Template {} has an invalid stored config: {}", template.getId(), e.getOriginalMessage());
+            config = null;
+        }
+        return CachedTemplate.of(template, config);
+    }
+
+    // The cached entry if it is still at the given version, else the row read again
+    private CachedTemplate current(TemplateVersion version) {
+        CachedTemplate cached = templatesById.get(version.getId());
+        if (cached != null && cached.version().equals(version.getVersion())) {
+            return cached;
+        }
+        InvoiceTemplate template = templateRepository.findById(version.getId())
+                .orElseThrow(() -> new NotFoundException("Template not found"));
+        CachedTemplate loaded = toCached(template);
+        remember(loaded);
+        return loaded;
+    }
+
+    private void remember(CachedTemplate cached) {
+        templatesById.merge(cached.id(), cached,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+
+    private void cacheAfterCommit(CachedTemplate cached) {
+        AfterCommit.run(() -> remember(cached));
     }
 
-    private TemplateResponse mapToResponse(InvoiceTemplate template) {
-        TemplateResponse response = new TemplateResponse();
-        response.setId(template.getId());
-        response.setBusinessId(template.getBusinessId());
-        response.setName(template.getName());
-        response.setConfigJson(template.getConfigJson());
-        response.setIsDefault(template.getIsDefault());
-        response.setCreatedAt(template.getCreatedAt());
-        return response;
+    private record CachedTemplate(Long id, Long version, Long businessId, String name, String configJson,
+            TemplateConfig config, Boolean isDefault, LocalDateTime createdAt) {
+
+        static CachedTemplate of(InvoiceTemplate template, TemplateConfig config) {
+            return new CachedTemplate(template.getId(), template.getVersion(), template.getBusinessId(),
+                    template.getName(), template.getConfigJson(), config, template.getIsDefault(),
+                    template.getCreatedAt());
+        }
+
+        // Callers get their own copy of the mutable config DTO, so the cached one never changes
+        TemplateResponse toResponse() {
+            return new TemplateResponse(id, businessId, name, config != null ? config.copy() : null, configJson,
+                    isDefault, createdAt);
+        }
     }
 }
@@ -0,0 +1,92 @@
+package com.invoice.template.service;
+
+import com.invoice.template.dto.TemplatePopularityResponse;
+import com.invoice.template.entity.PredefinedTemplate;
+import com.invoice.template.repository.PredefinedTemplateRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts system template assignments in memory and adds them to predefined_templates.usage_count in one batch on
+ * a schedule and at shutdown. Increments never touch the database row, so assignments don't contend on it.
+ */
+@Slf4j
+@Component
+public class TemplateUsageCounter {
+
+    private final PredefinedTemplateRepository predefinedTemplateRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // LongAdder stripes its cells across threads, so hot templates don't serialize on one CAS
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private volatile List<PredefinedTemplate> persisted;
+
+    public TemplateUsageCounter(PredefinedTemplateRepository predefinedTemplateRepository,
+            TransactionTemplate transactionTemplate) {
+        this.predefinedTemplateRepository = predefinedTemplateRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void increment(Long templateId) {
+        pending.computeIfAbsent(templateId, id -> new LongAdder()).increment();
+    }
+
+    // Last persisted counts plus whatever this node hasn't flushed yet
+    public List<TemplatePopularityResponse> getPopularity() {
+        List<PredefinedTemplate> templates = persisted;
+        if (templates == null) {
+            templates = predefinedTemplateRepository.findAll();
+            persisted = templates;
+        }
+        return templates.stream()
+                .map(template -> new TemplatePopularityResponse(template.getId(), template.getName(),
+                        template.getUsageCount() + pendingCount(template.getId()), template.getPreviewImageUrl()))
+                .sorted(Comparator.comparing(TemplatePopularityResponse::getUsageCount).reversed())
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${templates.usage-flush-interval-ms:30000}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        pending.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                deltas.put(id, delta);
+            }
+        });
+
+        if (!deltas.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        deltas.forEach(predefinedTemplateRepository::incrementUsageCount));
+            } catch (RuntimeException e) {
+                // Put the counts back so the next flush retries them
+                deltas.forEach((id, delta) -> pending.computeIfAbsent(id, key -> new LongAdder()).add(delta));
+                log.warn("Template usage counts could not be flushed", e);
+                return;
+            }
+        }
+        // Re-read so the ranking also picks up increments flushed by other nodes
+        persisted = predefinedTemplateRepository.findAll();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private long pendingCount(Long templateId) {
+        LongAdder adder = pending.get(templateId);
+        return adder != null ? adder.sum() : 0;
+    }
+}
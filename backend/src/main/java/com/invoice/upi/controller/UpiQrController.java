@@ -0,0 +1,37 @@
+package com.invoice.upi.controller;
+
+import com.invoice.upi.service.UpiQrService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/invoices")
+public class UpiQrController {
+
+    private final UpiQrService upiQrService;
+
+    public UpiQrController(UpiQrService upiQrService) {
+        this.upiQrService = upiQrService;
+    }
+
+    @GetMapping(value = "/{id}/upi-qr", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getUpiQrCode(@PathVariable Long id, WebRequest request) {
+        UpiQrService.UpiQrCode code = upiQrService.getInvoiceQrCode(id);
+        // The code changes with the due amount, so clients revalidate against the content hash
+        if (request.checkNotModified("\"" + code.contentHash() + "\"")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(code.contentHash())
+                .contentType(MediaType.IMAGE_PNG)
+                .body(code.png());
+    }
+}
@@ -0,0 +1,182 @@
+package com.invoice.upi.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.outbox.entity.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.nayuki.qrcodegen.QrCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates UPI payment QR codes for invoices. The PNG is cached per invoice together with the SHA-256 of the UPI
+ * link it encodes, so it is only re-encoded when the link changes - in practice when a payment changes the due
+ * amount.
+ */
+@Service
+public class UpiQrService {
+
+    private static final int QUIET_ZONE_MODULES = 4;
+
+    private final InvoiceRepository invoiceRepository;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final int modulePixels;
+    private final Timer encodeTimer;
+
+    private final Map<Long, UpiQrCode> codesByInvoice;
+
+    public UpiQrService(InvoiceRepository invoiceRepository, BusinessRepository businessRepository,
+            UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${upi.qr.module-pixels:8}") int modulePixels,
+            @Value("${upi.qr.cache-size:5000}") int cacheSize) {
+        this.invoiceRepository = invoiceRepository;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.modulePixels = modulePixels;
+        this.encodeTimer = Timer.builder("upi.qr.encode")
+                .description("Time to encode and render a UPI QR code")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.codesByInvoice = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UpiQrCode> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public record UpiQrCode(String contentHash, byte[] png) {
+    }
+
+    public UpiQrCode getInvoiceQrCode(Long invoiceId) {
+        Business business = getBusinessForCurrentUser();
+
+        Invoice invoice = invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new NotFoundException("Invoice not found"));
+
+        if (!invoice.getBusinessId().equals(business.getId())) {
+            throw new ForbiddenException("Unauthorized access to invoice");
+        }
+        if (business.getUpiId() == null) {
+            throw new ValidationException("Add a UPI ID to the business profile to generate payment QR codes");
+        }
+        if (invoice.getDueAmount().signum() <= 0) {
+            throw new ConflictException("Invoice is already paid");
+        }
+
+        String link = buildUpiLink(business, invoice);
+        String contentHash = sha256(link);
+
+        UpiQrCode cached = codesByInvoice.get(invoiceId);
+        if (cached != null && cached.contentHash().equals(contentHash)) {
+            return cached;
+        }
+
+        UpiQrCode code = new UpiQrCode(contentHash, encodeTimer.record(() -> render(link)));
+        codesByInvoice.put(invoiceId, code);
+        return code;
+    }
+
+    // Payments change the due amount, so drop the cached code as soon as the change is dispatched
+    @EventListener
+    public void onOutboxEvent(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case PAYMENT_ADDED, PAYMENT_DELETED, INVOICE_PAID, INVOICE_DELETED ->
+                    codesByInvoice.remove(event.getAggregateId());
+            default -> {
+            }
+        }
+    }
+
+    // NPCI deep link format: payee address, payee name, amount, currency, transaction ref and note
+    private static String buildUpiLink(Business business, Invoice invoice) {
+        String amount = invoice.getDueAmount().setScale(2, RoundingMode.HALF_UP).toPlainString();
+        return "upi://pay?pa=" + encode(business.getUpiId())
+                + "&pn=" + encode(business.getBusinessName())
+                + "&am=" + amount
+                + "&cu=INR"
+                + "&tr=" + encode(invoice.getInvoiceNumber())
+                + "&tn=" + encode("Invoice " + invoice.getInvoiceNumber());
+    }
+
+    private byte[] render(String link) {
+        QrCode qr = QrCode.encodeBinary(link.getBytes(StandardCharsets.UTF_8), QrCode.Ecc.MEDIUM);
+        int dimension = (qr.size + QUIET_ZONE_MODULES * 2) * modulePixels;
+
+        // One row of samples per module row, copied into the raster for each pixel line of that row; with the
+        // default binary palette 0 is black and 1 white
+        BufferedImage image = new BufferedImage(dimension, dimension, BufferedImage.TYPE_BYTE_BINARY);
+        WritableRaster raster = image.getRaster();
+        int[] row = new int[dimension];
+        for (int moduleY = -QUIET_ZONE_MODULES; moduleY < qr.size + QUIET_ZONE_MODULES; moduleY++) {
+            for (int x = 0; x < dimension; x++) {
+                // getModule is false outside the symbol, which gives the quiet zone
+                row[x] = qr.getModule(x / modulePixels - QUIET_ZONE_MODULES, moduleY) ? 0 : 1;
+            }
+            int top = (moduleY + QUIET_ZONE_MODULES) * modulePixels;
+            for (int y = top; y < top + modulePixels; y++) {
+                raster.setSamples(0, y, dimension, 1, 0, row);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("QR code could not be rendered", e);
+        }
+        return out.toByteArray();
+    }
+
+    // UPI apps expect %20 for spaces rather than the form-encoding '+'
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Business getBusinessForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        return businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+    }
+}
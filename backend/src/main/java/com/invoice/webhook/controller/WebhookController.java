@@ -0,0 +1,42 @@
+package com.invoice.webhook.controller;
+
+import com.invoice.webhook.dto.WebhookDeadLetterResponse;
+import com.invoice.webhook.dto.WebhookRequest;
+import com.invoice.webhook.dto.WebhookResponse;
+import com.invoice.webhook.service.WebhookService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+public class WebhookController {
+
+    private final WebhookService webhookService;
+
+    @PostMapping
+    public ResponseEntity<WebhookResponse> registerWebhook(@Valid @RequestBody WebhookRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(webhookService.registerWebhook(request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<WebhookResponse>> getWebhooks() {
+        return ResponseEntity.ok(webhookService.getWebhooks());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWebhook(@PathVariable Long id) {
+        webhookService.deleteWebhook(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/dead-letters")
+    public ResponseEntity<List<WebhookDeadLetterResponse>> getDeadLetters() {
+        return ResponseEntity.ok(webhookService.getDeadLetters());
+    }
+}
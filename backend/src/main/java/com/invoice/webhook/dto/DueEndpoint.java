@@ -0,0 +1,14 @@
+package com.invoice.webhook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DueEndpoint {
+
+    private Long endpointId;
+    private Long businessId;
+}
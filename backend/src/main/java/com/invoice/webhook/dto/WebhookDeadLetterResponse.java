@@ -0,0 +1,20 @@
+package com.invoice.webhook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDeadLetterResponse {
+
+    private Long id;
+    private Long endpointId;
+    private String payload;
+    private Integer attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.invoice.webhook.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WebhookRequest {
+
+    @NotBlank(message = "URL is required")
+    @Pattern(regexp = "^https?://.+", message = "URL must start with http:// or https://")
+    private String url;
+
+    private List<String> eventTypes; // Optional - null or empty subscribes to all events
+
+    @Min(value = 1, message = "Max concurrency must be at least 1")
+    @Max(value = 16, message = "Max concurrency must be at most 16")
+    private Integer maxConcurrency;
+}
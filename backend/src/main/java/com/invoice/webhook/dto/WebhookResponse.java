@@ -0,0 +1,26 @@
+package com.invoice.webhook.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookResponse {
+
+    private Long id;
+    private Long businessId;
+    private String url;
+    // Only set in the registration response
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String secret;
+    private List<String> eventTypes;
+    private Integer maxConcurrency;
+    private Boolean active;
+    private LocalDateTime createdAt;
+}
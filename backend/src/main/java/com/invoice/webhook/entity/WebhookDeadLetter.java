@@ -0,0 +1,42 @@
+package com.invoice.webhook.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "webhook_dead_letters",
+        indexes = @Index(name = "idx_webhook_dead_letters_business", columnList = "business_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "endpoint_id", nullable = false)
+    private Long endpointId;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    // The batch body exactly as it would have been POSTed
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,60 @@
+package com.invoice.webhook.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event waiting to be delivered to one endpoint. Rows are written when the outbox event is relayed and deleted
+ * once the receiver acknowledged them or they were dead-lettered, so pending deliveries survive a restart.
+ */
+@Entity
+@Table(name = "webhook_deliveries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_webhook_deliveries_endpoint_event",
+                columnNames = {"endpoint_id", "event_id"}),
+        indexes = {
+                @Index(name = "idx_webhook_deliveries_due", columnList = "next_attempt_at, endpoint_id"),
+                @Index(name = "idx_webhook_deliveries_lease_owner", columnList = "lease_owner")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "endpoint_id", nullable = false)
+    private Long endpointId;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    // The outbox event; with the endpoint it makes a re-relayed event a no-op
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "event_created_at", nullable = false)
+    private LocalDateTime eventCreatedAt;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Also pushed forward while a batch is in flight, so the row is not picked up twice
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Token of the flush that leased the row last, so a flush sends only the rows its lease actually won
+    @Column(name = "lease_owner", length = 36)
+    private String leaseOwner;
+}
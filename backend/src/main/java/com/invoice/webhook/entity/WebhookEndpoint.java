@@ -0,0 +1,46 @@
+package com.invoice.webhook.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "webhook_endpoints",
+        indexes = @Index(name = "idx_webhook_endpoints_business", columnList = "business_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEndpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    // Used to sign each delivery so the receiver can verify it came from us
+    @Column(nullable = false, length = 64)
+    private String secret;
+
+    // Comma separated event types, null means all events
+    @Column(name = "event_types", length = 500)
+    private String eventTypes;
+
+    @Column(name = "max_concurrency", nullable = false)
+    private Integer maxConcurrency = 2;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
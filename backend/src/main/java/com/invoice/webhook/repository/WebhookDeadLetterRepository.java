@@ -0,0 +1,13 @@
+package com.invoice.webhook.repository;
+
+import com.invoice.webhook.entity.WebhookDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WebhookDeadLetterRepository extends JpaRepository<WebhookDeadLetter, Long> {
+
+    List<WebhookDeadLetter> findTop100ByBusinessIdOrderByIdDesc(Long businessId);
+}
@@ -0,0 +1,58 @@
+package com.invoice.webhook.repository;
+
+import com.invoice.webhook.dto.DueEndpoint;
+import com.invoice.webhook.entity.WebhookDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    boolean existsByEndpointIdAndEventId(Long endpointId, Long eventId);
+
+    @Query("select distinct new com.invoice.webhook.dto.DueEndpoint(d.endpointId, d.businessId) "
+            + "from WebhookDelivery d where d.nextAttemptAt <= :now")
+    List<DueEndpoint> findDueEndpoints(@Param("now") LocalDateTime now);
+
+    @Query("select d.id from WebhookDelivery d where d.endpointId = :endpointId and d.nextAttemptAt <= :now "
+            + "order by d.id")
+    List<Long> findDueIds(@Param("endpointId") Long endpointId, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Claims a batch for sending; rows another node claimed in the meantime are not updated
+    @Transactional
+    @Modifying
+    @Query("update WebhookDelivery d set d.nextAttemptAt = :leasedUntil, d.leaseOwner = :owner "
+            + "where d.id in :ids and d.nextAttemptAt <= :now")
+    int lease(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+            @Param("leasedUntil") LocalDateTime leasedUntil, @Param("owner") String owner);
+
+    List<WebhookDelivery> findByLeaseOwnerOrderById(String leaseOwner);
+
+    // A range over idx_webhook_deliveries_due, not a scan of every pending row
+    long countByNextAttemptAtLessThanEqual(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update WebhookDelivery d set d.attempts = d.attempts + 1, d.nextAttemptAt = :nextAttemptAt, "
+            + "d.leaseOwner = null where d.id in :ids")
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WebhookDelivery d where d.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WebhookDelivery d where d.endpointId = :endpointId")
+    int deleteByEndpoint(@Param("endpointId") Long endpointId);
+}
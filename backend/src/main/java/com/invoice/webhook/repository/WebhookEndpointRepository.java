@@ -0,0 +1,15 @@
+package com.invoice.webhook.repository;
+
+import com.invoice.webhook.entity.WebhookEndpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WebhookEndpointRepository extends JpaRepository<WebhookEndpoint, Long> {
+
+    List<WebhookEndpoint> findByBusinessId(Long businessId);
+
+    List<WebhookEndpoint> findByBusinessIdAndActiveTrue(Long businessId);
+}
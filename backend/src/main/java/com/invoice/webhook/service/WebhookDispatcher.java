@@ -0,0 +1,327 @@
+package com.invoice.webhook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.service.OutboxEventHandler;
+import com.invoice.webhook.dto.DueEndpoint;
+import com.invoice.webhook.entity.WebhookDeadLetter;
+import com.invoice.webhook.entity.WebhookDelivery;
+import com.invoice.webhook.entity.WebhookEndpoint;
+import com.invoice.webhook.repository.WebhookDeadLetterRepository;
+import com.invoice.webhook.repository.WebhookDeliveryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to registered webhook endpoints. Each event is stored in webhook_deliveries per endpoint
+ * before the outbox event counts as dispatched, and stays there until the receiver acknowledged it or it was
+ * dead-lettered, so delivery is at-least-once across restarts. Due rows are flushed as batches; each endpoint has its
+ * own concurrency limit, so a slow receiver only backs up its own rows. Failed batches are retried with exponential
+ * backoff and jitter, and end up in webhook_dead_letters once attempts run out.
+ */
+@Slf4j
+@Component
+public class WebhookDispatcher implements OutboxEventHandler {
+
+    private final WebhookService webhookService;
+    private final WebhookTargetPolicy targetPolicy;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookDeadLetterRepository deadLetterRepository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long leaseMs;
+
+    private final HttpClient httpClient;
+    private final Map<Long, EndpointChannel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicLong dueDeliveries = new AtomicLong();
+    private final Timer deliveryLatency;
+    private final MeterRegistry meterRegistry;
+    private final ShardDirectory shardDirectory;
+
+    public WebhookDispatcher(WebhookService webhookService, WebhookTargetPolicy targetPolicy,
+            WebhookDeliveryRepository deliveryRepository, WebhookDeadLetterRepository deadLetterRepository,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry, ShardDirectory shardDirectory,
+            @Value("${webhook.batch-size:50}") int batchSize,
+            @Value("${webhook.max-attempts:8}") int maxAttempts,
+            @Value("${webhook.base-backoff-ms:1000}") long baseBackoffMs,
+            @Value("${webhook.max-backoff-ms:600000}") long maxBackoffMs,
+            @Value("${webhook.request-timeout-ms:10000}") long requestTimeoutMs) {
+        this.webhookService = webhookService;
+        this.targetPolicy = targetPolicy;
+        this.deliveryRepository = deliveryRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        // Long enough to cover connect plus response, so an in-flight batch is not picked up again
+        this.leaseMs = requestTimeoutMs * 3;
+        this.meterRegistry = meterRegistry;
+        this.shardDirectory = shardDirectory;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofMillis(requestTimeoutMs))
+                .build();
+        this.deliveryLatency = Timer.builder("webhook.delivery.latency")
+                .description("Time from event creation until the receiver acknowledged the batch")
+                .register(meterRegistry);
+        Gauge.builder("webhook.due", dueDeliveries, AtomicLong::get)
+                .description("Deliveries due for sending and not yet leased, across shards")
+                .register(meterRegistry);
+    }
+
+    // Runs on the relay's worker for the event's shard; a failure here leaves the outbox event pending
+    @Override
+    public void handle(OutboxEvent event) {
+        for (WebhookEndpoint endpoint : webhookService.getActiveEndpoints(event.getBusinessId())) {
+            if (!WebhookService.accepts(endpoint, event.getEventType())
+                    || deliveryRepository.existsByEndpointIdAndEventId(endpoint.getId(), event.getId())) {
+                continue;
+            }
+            WebhookDelivery delivery = new WebhookDelivery();
+            delivery.setEndpointId(endpoint.getId());
+            delivery.setBusinessId(endpoint.getBusinessId());
+            delivery.setEventId(event.getId());
+            delivery.setEventType(event.getEventType().name());
+            delivery.setPayload(event.getPayload());
+            delivery.setEventCreatedAt(event.getCreatedAt());
+            delivery.setNextAttemptAt(LocalDateTime.now());
+            try {
+                deliveryRepository.save(delivery);
+            } catch (DataIntegrityViolationException e) {
+                // Already stored by an earlier relay of the same event
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.flush-interval-ms:500}")
+    public void flush() {
+        shardDirectory.forEachShard("Webhook flush", () -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (DueEndpoint due : deliveryRepository.findDueEndpoints(now)) {
+                if (!shardDirectory.isServedHere(due.getBusinessId())) {
+                    continue;
+                }
+                try {
+                    flushEndpoint(due, now);
+                } catch (RuntimeException e) {
+                    // One broken endpoint must not keep the others from being flushed
+                    log.error("Webhook {} could not be flushed", due.getEndpointId(), e);
+                }
+            }
+        });
+    }
+
+    // Much less often than the flush: the backlog only needs to be roughly current for dashboards and alerts
+    @Scheduled(fixedDelayString = "${webhook.due-gauge-interval-ms:15000}")
+    public void refreshDueGauge() {
+        AtomicLong due = new AtomicLong();
+        shardDirectory.forEachShard("Webhook backlog count",
+                () -> due.addAndGet(deliveryRepository.countByNextAttemptAtLessThanEqual(LocalDateTime.now())));
+        dueDeliveries.set(due.get());
+    }
+
+    private void flushEndpoint(DueEndpoint due, LocalDateTime now) {
+        WebhookEndpoint endpoint = webhookService.findActiveEndpoint(due.getBusinessId(), due.getEndpointId())
+                .orElse(null);
+        if (endpoint == null) {
+            // Endpoint was deleted or disabled - drop what is still pending for it
+            channels.remove(due.getEndpointId());
+            deliveryRepository.deleteByEndpoint(due.getEndpointId());
+            return;
+        }
+        EndpointChannel channel = channels.computeIfAbsent(endpoint.getId(), id -> new EndpointChannel(endpoint));
+        if (now.isBefore(channel.backingOffUntil)) {
+            return;
+        }
+        while (channel.permits.tryAcquire()) {
+            List<Long> dueIds = deliveryRepository.findDueIds(endpoint.getId(), now, PageRequest.of(0, batchSize));
+            String owner = UUID.randomUUID().toString();
+            if (dueIds.isEmpty()
+                    || deliveryRepository.lease(dueIds, now, now.plusNanos(leaseMs * 1_000_000), owner) == 0) {
+                channel.permits.release();
+                return;
+            }
+            // Another node may have leased part of the batch in between; only what this lease won is sent
+            List<WebhookDelivery> batch = deliveryRepository.findByLeaseOwnerOrderById(owner);
+            if (batch.isEmpty()) {
+                channel.permits.release();
+                return;
+            }
+            send(channel, batch, batch.stream().map(WebhookDelivery::getId).toList());
+        }
+    }
+
+    private void send(EndpointChannel channel, List<WebhookDelivery> batch, List<Long> ids) {
+        String body = toBody(batch);
+        HttpRequest request;
+        try {
+            URI uri = targetPolicy.parse(channel.endpoint.getUrl());
+            targetPolicy.checkAddress(uri);
+            request = HttpRequest.newBuilder(uri)
+                    .timeout(httpClient.connectTimeout().orElse(Duration.ofSeconds(10)))
+                    .header("Content-Type", "application/json")
+                    .header("X-Webhook-Delivery", UUID.randomUUID().toString())
+                    .header("X-Webhook-Signature", "sha256=" + sign(channel.endpoint.getSecret(), body))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        } catch (RuntimeException e) {
+            failed(channel, batch, ids, String.valueOf(e));
+            return;
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error == null && response.statusCode() / 100 == 2) {
+                delivered(channel, batch, ids);
+            } else {
+                failed(channel, batch, ids, error != null ? String.valueOf(error) : "HTTP " + response.statusCode());
+            }
+        });
+    }
+
+    // Delivery callbacks run on HTTP client threads, which have no shard of their own
+    private void delivered(EndpointChannel channel, List<WebhookDelivery> batch, List<Long> ids) {
+        try {
+            shardDirectory.onBusinessShard(channel.endpoint.getBusinessId(), () -> deliveryRepository.deleteByIds(ids));
+            LocalDateTime now = LocalDateTime.now();
+            for (WebhookDelivery delivery : batch) {
+                deliveryLatency.record(Duration.between(delivery.getEventCreatedAt(), now));
+            }
+            meterRegistry.counter("webhook.deliveries", "outcome", "success").increment();
+        } catch (RuntimeException e) {
+            // The lease runs out and the batch is sent again; receivers already have to tolerate duplicates
+            log.error("Could not acknowledge deliveries for webhook {}", channel.endpoint.getId(), e);
+        } finally {
+            channel.permits.release();
+        }
+    }
+
+    private void failed(EndpointChannel channel, List<WebhookDelivery> batch, List<Long> ids, String failure) {
+        try {
+            List<WebhookDelivery> exhausted = new ArrayList<>();
+            List<Long> retryIds = new ArrayList<>();
+            int attempt = 1;
+            for (WebhookDelivery delivery : batch) {
+                if (delivery.getAttempts() + 1 >= maxAttempts) {
+                    exhausted.add(delivery);
+                } else {
+                    retryIds.add(delivery.getId());
+                    attempt = Math.max(attempt, delivery.getAttempts() + 1);
+                }
+            }
+            long delay = backoff(attempt);
+            // Holding back the whole endpoint, not just this batch, gives a failing receiver fewer requests
+            channel.backingOffUntil = LocalDateTime.now().plusNanos(delay * 1_000_000);
+            shardDirectory.onBusinessShard(channel.endpoint.getBusinessId(), () -> {
+                if (!exhausted.isEmpty()) {
+                    deadLetter(channel.endpoint, toBody(exhausted), maxAttempts, failure);
+                    deliveryRepository.deleteByIds(exhausted.stream().map(WebhookDelivery::getId).toList());
+                }
+                if (!retryIds.isEmpty()) {
+                    deliveryRepository.reschedule(retryIds, channel.backingOffUntil);
+                }
+                return null;
+            });
+            if (!exhausted.isEmpty()) {
+                meterRegistry.counter("webhook.deliveries", "outcome", "dead_letter").increment();
+            }
+            if (!retryIds.isEmpty()) {
+                meterRegistry.counter("webhook.deliveries", "outcome", "retry").increment();
+                log.debug("Webhook {} delivery failed ({}), retry {} in {}ms", channel.endpoint.getId(), failure,
+                        attempt + 1, delay);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not record failed deliveries {} for webhook {}", ids, channel.endpoint.getId(), e);
+        } finally {
+            channel.permits.release();
+        }
+    }
+
+    // Full jitter on an exponentially growing, capped window
+    private long backoff(int attempt) {
+        long window = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return window / 2 + ThreadLocalRandom.current().nextLong(window / 2 + 1);
+    }
+
+    private void deadLetter(WebhookEndpoint endpoint, String body, int attempts, String error) {
+        WebhookDeadLetter deadLetter = new WebhookDeadLetter();
+        deadLetter.setEndpointId(endpoint.getId());
+        deadLetter.setBusinessId(endpoint.getBusinessId());
+        deadLetter.setPayload(body);
+        deadLetter.setAttempts(attempts);
+        deadLetter.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        deadLetterRepository.save(deadLetter);
+    }
+
+    private String toBody(List<WebhookDelivery> batch) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode events = root.putArray("events");
+        for (WebhookDelivery delivery : batch) {
+            ObjectNode node = events.addObject();
+            node.put("id", delivery.getEventId());
+            node.put("type", delivery.getEventType());
+            node.put("createdAt", delivery.getEventCreatedAt().toString());
+            node.putRawValue("data", new RawValue(delivery.getPayload()));
+        }
+        return root.toString();
+    }
+
+    private String sign(String secret, String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Webhook body could not be signed", e);
+        }
+    }
+
+    private static class EndpointChannel {
+
+        private final WebhookEndpoint endpoint;
+        private final Semaphore permits;
+        private volatile LocalDateTime backingOffUntil = LocalDateTime.MIN;
+
+        private EndpointChannel(WebhookEndpoint endpoint) {
+            this.endpoint = endpoint;
+            this.permits = new Semaphore(endpoint.getMaxConcurrency());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.invoice.webhook.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.common.exception.ForbiddenException;
+import com.invoice.common.exception.NotFoundException;
+import com.invoice.common.exception.ValidationException;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.webhook.dto.WebhookDeadLetterResponse;
+import com.invoice.webhook.dto.WebhookRequest;
+import com.invoice.webhook.dto.WebhookResponse;
+import com.invoice.webhook.entity.WebhookEndpoint;
+import com.invoice.webhook.repository.WebhookDeadLetterRepository;
+import com.invoice.webhook.repository.WebhookDeliveryRepository;
+import com.invoice.webhook.repository.WebhookEndpointRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+public class WebhookService {
+
+    private final WebhookEndpointRepository endpointRepository;
+    private final WebhookDeadLetterRepository deadLetterRepository;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookTargetPolicy targetPolicy;
+    private final BusinessRepository businessRepository;
+    private final UserRepository userRepository;
+    private final ShardDirectory shardDirectory;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final long endpointCacheMs;
+
+    // Active endpoints per business, read for every dispatched event. Changes on this node evict at once; changes
+    // on other nodes are picked up when the entry expires
+    private final Map<Long, CachedEndpoints> activeEndpoints = new ConcurrentHashMap<>();
+
+    private record CachedEndpoints(List<WebhookEndpoint> endpoints, long expiresAt) {
+    }
+
+    public WebhookService(WebhookEndpointRepository endpointRepository, WebhookDeadLetterRepository deadLetterRepository,
+            WebhookDeliveryRepository deliveryRepository, WebhookTargetPolicy targetPolicy,
+            BusinessRepository businessRepository, UserRepository userRepository, ShardDirectory shardDirectory,
+            @Value("${webhook.endpoint-cache-ms:30000}") long endpointCacheMs) {
+        this.endpointRepository = endpointRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.targetPolicy = targetPolicy;
+        this.businessRepository = businessRepository;
+        this.userRepository = userRepository;
+        this.shardDirectory = shardDirectory;
+        this.endpointCacheMs = endpointCacheMs;
+    }
+
+    public WebhookResponse registerWebhook(WebhookRequest request) {
+        Long businessId = getBusinessIdForCurrentUser();
+        URI url = targetPolicy.parse(request.getUrl());
+        targetPolicy.checkAddress(url);
+
+        WebhookEndpoint endpoint = new WebhookEndpoint();
+        endpoint.setBusinessId(businessId);
+        endpoint.setUrl(url.toString());
+        endpoint.setEventTypes(normalizeEventTypes(request.getEventTypes()));
+        endpoint.setMaxConcurrency(request.getMaxConcurrency() != null ? request.getMaxConcurrency() : 2);
+        endpoint.setActive(true);
+
+        byte[] secret = new byte[32];
+        secureRandom.nextBytes(secret);
+        endpoint.setSecret(HexFormat.of().formatHex(secret));
+
+        WebhookEndpoint saved = endpointRepository.save(endpoint);
+        activeEndpoints.remove(businessId);
+        // The secret is only ever shown here, once
+        WebhookResponse response = mapToResponse(saved);
+        response.setSecret(saved.getSecret());
+        return response;
+    }
+
+    public List<WebhookResponse> getWebhooks() {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        return endpointRepository.findByBusinessId(businessId)
+                .stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    public void deleteWebhook(Long id) {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        WebhookEndpoint endpoint = endpointRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Webhook not found"));
+
+        if (!endpoint.getBusinessId().equals(businessId)) {
+            throw new ForbiddenException("Unauthorized access to webhook");
+        }
+
+        endpointRepository.delete(endpoint);
+        deliveryRepository.deleteByEndpoint(endpoint.getId());
+        activeEndpoints.remove(businessId);
+    }
+
+    public List<WebhookDeadLetterResponse> getDeadLetters() {
+        Long businessId = getBusinessIdForCurrentUser();
+
+        return deadLetterRepository.findTop100ByBusinessIdOrderByIdDesc(businessId)
+                .stream()
+                .map(d -> new WebhookDeadLetterResponse(d.getId(), d.getEndpointId(), d.getPayload(),
+                        d.getAttempts(), d.getLastError(), d.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    // Also called from the relay and delivery threads, so the business's shard is resolved explicitly
+    public List<WebhookEndpoint> getActiveEndpoints(Long businessId) {
+        long now = System.currentTimeMillis();
+        CachedEndpoints cached = activeEndpoints.get(businessId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.endpoints();
+        }
+        List<WebhookEndpoint> endpoints = shardDirectory.onBusinessShard(businessId,
+                () -> List.copyOf(endpointRepository.findByBusinessIdAndActiveTrue(businessId)));
+        activeEndpoints.put(businessId, new CachedEndpoints(endpoints, now + endpointCacheMs));
+        return endpoints;
+    }
+
+    /**
+     * An endpoint missing from the cache is looked up again before it counts as gone, since it may have been
+     * registered on another node after the cache was filled.
+     */
+    public Optional<WebhookEndpoint> findActiveEndpoint(Long businessId, Long endpointId) {
+        Optional<WebhookEndpoint> endpoint = find(getActiveEndpoints(businessId), endpointId);
+        if (endpoint.isPresent()) {
+            return endpoint;
+        }
+        activeEndpoints.remove(businessId);
+        return find(getActiveEndpoints(businessId), endpointId);
+    }
+
+    private static Optional<WebhookEndpoint> find(List<WebhookEndpoint> endpoints, Long endpointId) {
+        return endpoints.stream()
+                .filter(e -> e.getId().equals(endpointId))
+                .findFirst();
+    }
+
+    public static boolean accepts(WebhookEndpoint endpoint, OutboxEvent.EventType eventType) {
+        return endpoint.getEventTypes() == null
+                || Arrays.asList(endpoint.getEventTypes().split(",")).contains(eventType.name());
+    }
+
+    private String normalizeEventTypes(List<String> eventTypes) {
+        if (eventTypes == null || eventTypes.isEmpty()) {
+            return null;
+        }
+        return eventTypes.stream()
+                .map(type -> {
+                    try {
+                        return OutboxEvent.EventType.valueOf(type.trim().toUpperCase()).name();
+                    } catch (IllegalArgumentException e) {
+                        throw new ValidationException("Unknown event type: " + type);
+                    }
+                })
+                .distinct()
+                .collect(Collectors.joining(","));
+    }
+
+    private WebhookResponse mapToResponse(WebhookEndpoint endpoint) {
+        WebhookResponse response = new WebhookResponse();
+        response.setId(endpoint.getId());
+        response.setBusinessId(endpoint.getBusinessId());
+        response.setUrl(endpoint.getUrl());
+        response.setEventTypes(endpoint.getEventTypes() != null ? List.of(endpoint.getEventTypes().split(",")) : List.of());
+        response.setMaxConcurrency(endpoint.getMaxConcurrency());
+        response.setActive(endpoint.getActive());
+        response.setCreatedAt(endpoint.getCreatedAt());
+        return response;
+    }
+
+    private Long getBusinessIdForCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        Business business = businessRepository.findByUserId(user.getId())
+                .orElseThrow(() -> new NotFoundException(
+                        "Business not found. Please create a business profile first."));
+
+        return business.getId();
+    }
+}
@@ -0,0 +1,75 @@
+package com.invoice.webhook.service;
+
+import com.invoice.common.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+
+/**
+ * Decides which URLs webhooks may be sent to. Only http(s) URLs whose host resolves to public addresses are
+ * accepted, so a webhook cannot be pointed at loopback, link-local (cloud metadata), private or other internal
+ * addresses. Checked at registration and again before each send, since DNS answers can change.
+ */
+@Component
+public class WebhookTargetPolicy {
+
+    private final boolean allowPrivateTargets;
+
+    public WebhookTargetPolicy(@Value("${webhook.allow-private-targets:false}") boolean allowPrivateTargets) {
+        this.allowPrivateTargets = allowPrivateTargets;
+    }
+
+    public URI parse(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new ValidationException("URL is not valid");
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+            throw new ValidationException("URL must start with http:// or https://");
+        }
+        if (uri.getHost() == null) {
+            throw new ValidationException("URL must include a host name");
+        }
+        return uri;
+    }
+
+    public void checkAddress(URI uri) {
+        if (allowPrivateTargets) {
+            return;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new ValidationException("URL host could not be resolved: " + uri.getHost());
+        }
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new ValidationException("URL must not point to a private or local address");
+            }
+        }
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0.0.0.0/8 and carrier-grade NAT 100.64.0.0/10
+            return first == 0 || (first == 100 && second >= 64 && second < 128);
+        }
+        // IPv6 unique local fc00::/7
+        return (bytes[0] & 0xfe) == 0xfc;
+    }
+}
@@ -0,0 +1,117 @@
+package com.invoice.workload;
+
+import com.invoice.datasource.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead for heavy work - exports, index rebuilds, bulk learning - so it cannot take the connections and threads
+ * that ordinary requests need. Jobs run on a fixed set of threads with a short bounded queue; once both are full,
+ * new jobs are turned away with {@link WorkloadRejectedException} instead of piling up behind each other.
+ *
+ * <p>{@link #jdbcTemplate()} reads through the reporting pool with its own, longer statement timeout. Jobs that go
+ * through JPA still use the main pool, but never more than {@code workload.reporting.threads} connections of it.
+ */
+@Slf4j
+public class ReportingWorkload implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejections;
+
+    public ReportingWorkload(DataSource dataSource, int threads, int queueCapacity, int statementTimeoutSeconds,
+            MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout(statementTimeoutSeconds);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("reporting-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "reporting", Tags.empty()).bindTo(meterRegistry);
+        this.rejections = Counter.builder("workload.rejected").tag("class", "reporting")
+                .description("Heavy jobs turned away because the reporting bulkhead was full")
+                .register(meterRegistry);
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Runs the job inside the bulkhead and waits for its result. The caller's security context and shard carry over
+     * to the worker thread; a transaction does not, so the job opens its own if it needs one.
+     */
+    public <T> T run(String job, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(ShardContext.wrap(new DelegatingSecurityContextCallable<>(task)));
+        } catch (RejectedExecutionException e) {
+            throw rejected(job);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(job + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(job + " interrupted", e);
+        }
+    }
+
+    /**
+     * Queues the job inside the bulkhead without waiting for it, for work a caller can come back for later. Context
+     * carries over as with {@link #run}; a full bulkhead is reported the same way, before anything is queued.
+     */
+    public <T> CompletableFuture<T> submit(String job, Callable<T> task) {
+        Callable<T> wrapped = ShardContext.wrap(new DelegatingSecurityContextCallable<>(task));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(wrapped.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw rejected(job);
+        }
+        return result;
+    }
+
+    private WorkloadRejectedException rejected(String job) {
+        rejections.increment();
+        log.warn("Rejected {}: reporting bulkhead is full", job);
+        return new WorkloadRejectedException("Too many reports are running. Please try again shortly.");
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        // Only the dedicated pool belongs to the bulkhead; the shared routing datasource is closed with its beans
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.invoice.workload;
+
+import com.invoice.datasource.ShardDataSources;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Sets up the reporting bulkhead. Its pool points at {@code workload.reporting.jdbc-url}, else the read replica,
+ * else the primary database, and is deliberately not a {@code DataSource} bean so the application's own pool and
+ * routing stay as they are. With sharding enabled reports must follow the business to its shard, so they read
+ * through the shard routing datasource and keep only the executor and statement timeout of their own.
+ */
+@Configuration
+public class WorkloadConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReportingWorkload reportingWorkload(DataSourceProperties properties, DataSource dataSource,
+            ObjectProvider<ShardDataSources> shardDataSources, MeterRegistry meterRegistry,
+            @Value("${workload.reporting.jdbc-url:${app.datasource.replica.jdbc-url:${spring.datasource.url}}}") String jdbcUrl,
+            @Value("${workload.reporting.pool-size:4}") int poolSize,
+            @Value("${workload.reporting.connection-timeout-ms:30000}") long connectionTimeoutMs,
+            @Value("${workload.reporting.threads:4}") int threads,
+            @Value("${workload.reporting.queue-capacity:8}") int queueCapacity,
+            @Value("${workload.reporting.statement-timeout-seconds:120}") int statementTimeoutSeconds) {
+        DataSource reportingDataSource = dataSource;
+        if (shardDataSources.getIfAvailable() == null) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(jdbcUrl);
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+            pool.setPoolName("reporting");
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(connectionTimeoutMs);
+            pool.setReadOnly(true);
+            // hikaricp.connections.pending and hikaricp.connections.acquire tagged pool=reporting
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            reportingDataSource = pool;
+        }
+        return new ReportingWorkload(reportingDataSource, threads, queueCapacity, statementTimeoutSeconds,
+                meterRegistry);
+    }
+}
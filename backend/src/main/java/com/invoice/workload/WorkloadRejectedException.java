@@ -0,0 +1,24 @@
+package com.invoice.workload;
+
+import com.invoice.common.exception.ApiException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A heavy job could not be admitted because its bulkhead is saturated; reported as 503 with Retry-After.
+ */
+public class WorkloadRejectedException extends ApiException {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    public WorkloadRejectedException(String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return headers;
+    }
+}
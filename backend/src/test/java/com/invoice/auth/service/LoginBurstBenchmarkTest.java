@@ -0,0 +1,185 @@
+package com.invoice.auth.service;
+
+import com.invoice.auth.dto.AuthResponse;
+import com.invoice.auth.dto.LoginRequest;
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.ratelimit.LoginThrottle;
+import com.invoice.ratelimit.RateLimitExceededException;
+import com.invoice.ratelimit.RateLimitProperties;
+import com.invoice.ratelimit.RateLimiter;
+import com.invoice.security.BoundedPasswordEncoder;
+import com.invoice.security.JwtUtil;
+import com.invoice.workload.WorkloadRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User.UserBuilder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Login latency under a burst: 400 attempts arrive at once from 100 addresses, a quarter of them with a wrong
+ * password, against real BCrypt on the bounded hashing pool and the configured login limits. Attempts the pool or the
+ * limits turn away should be answered at once rather than queue behind the hashing. Run with
+ * {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class LoginBurstBenchmarkTest {
+
+    private static final int ATTEMPTS = 400;
+    private static final int ADDRESSES = 100;
+    private static final int ACCOUNTS = 20;
+    private static final String PASSWORD = "correct horse";
+
+    @Test
+    void loginLatencyUnderABurst() throws Exception {
+        try (BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(10,
+                Runtime.getRuntime().availableProcessors(), 32, new SimpleMeterRegistry())) {
+            AuthService authService = authService(passwordEncoder);
+            LoginRequest warmup = new LoginRequest();
+            warmup.setEmail("user0@example.com");
+            warmup.setPassword(PASSWORD);
+            assertThat(attempt(authService, warmup, "10.1.0.1")).isEqualTo("ok");
+
+            Outcomes outcomes = new Outcomes();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService clients = Executors.newFixedThreadPool(64);
+            try {
+                List<Future<?>> pending = new ArrayList<>();
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    LoginRequest request = new LoginRequest();
+                    request.setEmail("user" + (i % ACCOUNTS) + "@example.com");
+                    request.setPassword(i % 4 == 0 ? "wrong" : PASSWORD);
+                    String address = "10.0.0." + (i % ADDRESSES);
+                    pending.add(clients.submit(() -> {
+                        start.await();
+                        long started = System.nanoTime();
+                        String outcome = attempt(authService, request, address);
+                        outcomes.record(outcome, System.nanoTime() - started);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : pending) {
+                    future.get(2, TimeUnit.MINUTES);
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+
+            List<Long> all = outcomes.all();
+            System.out.printf("login burst of %d: %s; p50 %.1f ms, p99 %.1f ms, ok p99 %.1f ms%n", ATTEMPTS,
+                    outcomes.counts, percentile(all, 50), percentile(all, 99),
+                    percentile(outcomes.latencies.getOrDefault("ok", List.of()), 99));
+            assertThat(all).hasSize(ATTEMPTS);
+            // Refusals never wait for a hash; a pile-up would show as refusals as slow as the logins themselves
+            assertThat(percentile(outcomes.latencies.getOrDefault("busy", List.of()), 99)).isLessThan(1000.0);
+        }
+    }
+
+    private static String attempt(AuthService authService, LoginRequest request, String address) {
+        try {
+            AuthResponse response = authService.login(request, address).join();
+            return response.getToken() != null ? "ok" : "empty";
+        } catch (CompletionException e) {
+            return outcome(e.getCause());
+        } catch (RuntimeException e) {
+            return outcome(e);
+        }
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof BadCredentialsException) {
+            return "wrong-password";
+        }
+        if (e instanceof RateLimitExceededException) {
+            return "limited";
+        }
+        if (e instanceof WorkloadRejectedException) {
+            return "busy";
+        }
+        throw new IllegalStateException(e);
+    }
+
+    private static AuthService authService(BoundedPasswordEncoder passwordEncoder) {
+        String hash = passwordEncoder.encode(PASSWORD);
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager();
+        UserRepository userRepository = mock(UserRepository.class);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String email = "user" + i + "@example.com";
+            UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(email);
+            users.createUser(builder.password(hash).roles("BUSINESS_OWNER").build());
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setEmail(email);
+            user.setName("User " + i);
+            user.setRole("BUSINESS_OWNER");
+            when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+        when(refreshTokenService.issue(anyLong())).thenAnswer(invocation -> new RefreshTokenService.IssuedToken(
+                invocation.getArgument(0), "family", "refresh"));
+
+        RateLimitProperties properties = new RateLimitProperties();
+        LoginThrottle loginThrottle = new LoginThrottle(new RateLimiter(new SimpleMeterRegistry()), properties);
+        return new AuthService(userRepository, passwordEncoder, jwtUtil, new ProviderManager(provider),
+                loginThrottle, refreshTokenService);
+    }
+
+    private static double percentile(List<Long> latencies, int percentile) {
+        if (latencies.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100)) / 1e6;
+    }
+
+    private static final class Outcomes {
+
+        private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        private void record(String outcome, long nanos) {
+            latencies.computeIfAbsent(outcome, key -> Collections.synchronizedList(new ArrayList<>())).add(nanos);
+            counts.computeIfAbsent(outcome, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        private List<Long> all() {
+            List<Long> all = new ArrayList<>();
+            latencies.values().forEach(all::addAll);
+            return all;
+        }
+    }
+}
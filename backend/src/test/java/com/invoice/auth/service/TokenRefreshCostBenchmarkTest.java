@@ -0,0 +1,153 @@
+package com.invoice.auth.service;
+
+import com.invoice.auth.dto.AuthResponse;
+import com.invoice.auth.dto.LoginRequest;
+import com.invoice.auth.entity.RefreshToken;
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.RefreshTokenRepository;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.ratelimit.LoginThrottle;
+import com.invoice.ratelimit.RateLimitProperties;
+import com.invoice.ratelimit.RateLimiter;
+import com.invoice.security.BoundedPasswordEncoder;
+import com.invoice.security.JwtUtil;
+import com.invoice.security.TokenRevocationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * What a session renewal costs with a refresh token, against signing in again with the password: BCrypt at the
+ * configured strength on one side, a SHA-256 lookup and a token rotation on the other. The refresh token table is an
+ * in-memory stand-in, so the figures leave out the database round trips both paths share. Run with
+ * {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class TokenRefreshCostBenchmarkTest {
+
+    private static final String EMAIL = "owner@example.com";
+    private static final String PASSWORD = "correct horse";
+    private static final int LOGINS = 200;
+    private static final int REFRESHES = 20_000;
+
+    private final Map<String, RefreshToken> tokensByHash = new ConcurrentHashMap<>();
+    private final AtomicLong tokenIds = new AtomicLong();
+
+    @Test
+    void refreshCostsAFractionOfALogin() {
+        try (BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(10, 1, 32,
+                new SimpleMeterRegistry())) {
+            AuthService authService = authService(passwordEncoder);
+            LoginRequest request = new LoginRequest();
+            request.setEmail(EMAIL);
+            request.setPassword(PASSWORD);
+
+            for (int i = 0; i < LOGINS / 10; i++) {
+                authService.login(request, "10.0.0." + i).join();
+            }
+            long[] logins = new long[LOGINS];
+            String refreshToken = null;
+            for (int i = 0; i < LOGINS; i++) {
+                long started = System.nanoTime();
+                AuthResponse response = authService.login(request, "10.0.1." + i).join();
+                logins[i] = System.nanoTime() - started;
+                refreshToken = response.getRefreshToken();
+            }
+
+            for (int i = 0; i < REFRESHES / 10; i++) {
+                refreshToken = authService.refresh(refreshToken).getRefreshToken();
+            }
+            long[] refreshes = new long[REFRESHES];
+            for (int i = 0; i < REFRESHES; i++) {
+                long started = System.nanoTime();
+                refreshToken = authService.refresh(refreshToken).getRefreshToken();
+                refreshes[i] = System.nanoTime() - started;
+            }
+
+            Arrays.sort(logins);
+            Arrays.sort(refreshes);
+            double loginP50 = logins[LOGINS / 2] / 1e6;
+            double refreshP50 = refreshes[REFRESHES / 2] / 1e6;
+            System.out.printf("session renewal: login p50 %.2f ms, p99 %.2f ms; refresh p50 %.3f ms, p99 %.3f ms; "
+                            + "refresh is %.0fx cheaper%n", loginP50, logins[LOGINS * 99 / 100] / 1e6, refreshP50,
+                    refreshes[REFRESHES * 99 / 100] / 1e6, loginP50 / refreshP50);
+            assertThat(refreshP50 * 10).isLessThan(loginP50);
+        }
+    }
+
+    private AuthService authService(BoundedPasswordEncoder passwordEncoder) {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager();
+        users.createUser(org.springframework.security.core.userdetails.User.withUsername(EMAIL)
+                .password(passwordEncoder.encode(PASSWORD)).roles("BUSINESS_OWNER").build());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setName("Owner");
+        user.setRole("BUSINESS_OWNER");
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+
+        RefreshTokenService refreshTokenService = new RefreshTokenService(refreshTokenTable(),
+                new TokenRevocationCache(900_000L, event -> {
+                }), 1_209_600_000L);
+        // Only the renewal itself is measured, so the login limits stay out of the way
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        return new AuthService(userRepository, passwordEncoder, jwtUtil, new ProviderManager(provider),
+                new LoginThrottle(new RateLimiter(new SimpleMeterRegistry()), properties), refreshTokenService);
+    }
+
+    private RefreshTokenRepository refreshTokenTable() {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId(tokenIds.incrementAndGet());
+            tokensByHash.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(repository.findByTokenHash(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(tokensByHash.get(invocation.<String>getArgument(0))));
+        when(repository.markUsed(anyLong(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            RefreshToken token = tokensByHash.values().stream()
+                    .filter(candidate -> candidate.getId().equals(id) && candidate.getUsedAt() == null)
+                    .findFirst()
+                    .orElse(null);
+            if (token == null) {
+                return 0;
+            }
+            // Used tokens can never be presented again successfully, so the stand-in forgets them
+            tokensByHash.remove(token.getTokenHash());
+            return 1;
+        });
+        return repository;
+    }
+}
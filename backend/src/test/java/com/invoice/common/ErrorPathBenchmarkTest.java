@@ -0,0 +1,72 @@
+package com.invoice.common;
+
+import com.invoice.common.exception.NotFoundException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of requests that end in an expected error, through Spring MVC and {@link GlobalExceptionHandler}: a
+ * typed {@link NotFoundException} - no stack trace, pre-serialized body - against a plain RuntimeException, which
+ * captures its stack and has its body serialized per request. Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class ErrorPathBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int REQUESTS = 50_000;
+    private static final int ROUNDS = 3;
+
+    @RestController
+    static class FailingController {
+
+        @GetMapping("/typed")
+        String typed() {
+            throw new NotFoundException("Invoice not found");
+        }
+
+        @GetMapping("/untyped")
+        String untyped() {
+            throw new IllegalArgumentException("Invoice not found");
+        }
+    }
+
+    @Test
+    void typedErrorsAreCheaperThanUntypedOnes() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        assertThat(mockMvc.perform(get("/typed")).andReturn().getResponse().getStatus()).isEqualTo(404);
+        assertThat(mockMvc.perform(get("/untyped")).andReturn().getResponse().getStatus()).isEqualTo(400);
+
+        // Both paths share most of MVC, so both are warmed before either is timed; rounds alternate, best counts
+        for (int i = 0; i < WARMUP; i++) {
+            mockMvc.perform(get("/typed"));
+            mockMvc.perform(get("/untyped"));
+        }
+        double typed = 0;
+        double untyped = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            untyped = Math.max(untyped, requestsPerSecond(mockMvc, "/untyped"));
+            typed = Math.max(typed, requestsPerSecond(mockMvc, "/typed"));
+        }
+
+        System.out.printf("error path: typed %.0f req/s, untyped %.0f req/s (%.2fx)%n", typed, untyped,
+                typed / untyped);
+        assertThat(typed).isGreaterThan(untyped);
+    }
+
+    private static double requestsPerSecond(MockMvc mockMvc, String path) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get(path));
+        }
+        return REQUESTS / ((System.nanoTime() - started) / 1e9);
+    }
+}
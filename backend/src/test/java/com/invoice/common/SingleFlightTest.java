@@ -0,0 +1,115 @@
+package com.invoice.common;
+
+import com.invoice.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+    private static final long REUSE_MS = 60_000;
+
+    private MeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private final AtomicInteger databaseExecutions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // No replica configured, so there is no read-your-writes tracker
+        singleFlight = new SingleFlight(meterRegistry,
+                new StaticListableBeanFactory().getBeanProvider(ReadYourWritesTracker.class), REUSE_MS);
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(CALLERS);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<String> results = new ArrayList<>();
+        try {
+            List<Callable<String>> callers = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                callers.add(() -> {
+                    arrived.countDown();
+                    return singleFlight.execute("invoices", 42L, () -> {
+                        // Holds the query open until every caller has asked for the same key
+                        await(arrived);
+                        return query("invoices of 42");
+                    });
+                });
+            }
+            for (Future<String> result : executor.invokeAll(callers, 30, TimeUnit.SECONDS)) {
+                results.add(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(databaseExecutions).hasValue(1);
+        assertThat(results).hasSize(CALLERS).containsOnly("invoices of 42");
+        assertThat(meterRegistry.counter("singleflight.calls", "name", "invoices").count()).isEqualTo(CALLERS);
+        assertThat(meterRegistry.counter("singleflight.executions", "name", "invoices").count()).isEqualTo(1);
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        singleFlight.execute("invoices", 1L, () -> query("business 1"));
+        singleFlight.execute("invoices", 2L, () -> query("business 2"));
+        singleFlight.execute("customers", 1L, () -> query("customers of 1"));
+
+        assertThat(databaseExecutions).hasValue(3);
+    }
+
+    @Test
+    void invalidationForcesAFreshRead() {
+        assertThat(singleFlight.execute("invoices", 42L, () -> query("before"))).isEqualTo("before");
+        assertThat(singleFlight.execute("invoices", 42L, () -> query("reused"))).isEqualTo("before");
+
+        // Outside a transaction the invalidation applies at once
+        singleFlight.invalidateAfterCommit("invoices", 42L);
+
+        assertThat(singleFlight.execute("invoices", 42L, () -> query("after"))).isEqualTo("after");
+        assertThat(databaseExecutions).hasValue(2);
+    }
+
+    @Test
+    void failuresAreNotReused() {
+        assertThatThrownBy(() -> singleFlight.execute("invoices", 42L, () -> {
+            query("failing");
+            throw new IllegalStateException("connection lost");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("invoices", 42L, () -> query("retried"))).isEqualTo("retried");
+        assertThat(databaseExecutions).hasValue(2);
+    }
+
+    private String query(String result) {
+        databaseExecutions.incrementAndGet();
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.invoice.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.invoice.invoice.dto.InvoiceItemResponse;
+import com.invoice.invoice.dto.InvoiceResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Size and encode/decode time of a 10,000-invoice list as JSON and as CBOR, with mappers configured the way
+ * {@link MessageFormatConfig} and Boot build them. Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class MessageFormatBenchmarkTest {
+
+    private static final int INVOICES = 10_000;
+    private static final int ITEMS_PER_INVOICE = 5;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+    private static final TypeReference<List<InvoiceResponse>> INVOICE_LIST = new TypeReference<>() {
+    };
+
+    @Test
+    void cborAgainstJsonForTenThousandInvoices() throws Exception {
+        List<InvoiceResponse> invoices = invoices();
+        ObjectMapper json = builder().build();
+        ObjectMapper cbor = builder().factory(new CBORFactory()).build();
+
+        Result jsonResult = measure(json, invoices);
+        Result cborResult = measure(cbor, invoices);
+
+        System.out.printf("%,d invoices: JSON %,d bytes, encode %.1f ms, decode %.1f ms; "
+                        + "CBOR %,d bytes (%.0f%%), encode %.1f ms, decode %.1f ms%n", INVOICES, jsonResult.bytes,
+                jsonResult.encodeMs, jsonResult.decodeMs, cborResult.bytes,
+                100.0 * cborResult.bytes / jsonResult.bytes, cborResult.encodeMs, cborResult.decodeMs);
+        assertThat(cborResult.bytes).isLessThan(jsonResult.bytes);
+    }
+
+    private record Result(int bytes, double encodeMs, double decodeMs) {
+    }
+
+    // Best of the timed rounds, after warm-up rounds that also check the list survives the round trip
+    private static Result measure(ObjectMapper mapper, List<InvoiceResponse> invoices) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(invoices);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertThat(mapper.readValue(mapper.writeValueAsBytes(invoices), INVOICE_LIST)).isEqualTo(invoices);
+        }
+        long bestEncode = Long.MAX_VALUE;
+        long bestDecode = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            encoded = mapper.writeValueAsBytes(invoices);
+            bestEncode = Math.min(bestEncode, System.nanoTime() - started);
+            started = System.nanoTime();
+            mapper.readValue(encoded, INVOICE_LIST);
+            bestDecode = Math.min(bestDecode, System.nanoTime() - started);
+        }
+        return new Result(encoded.length, bestEncode / 1e6, bestDecode / 1e6);
+    }
+
+    // What Boot's builder does for the application's mappers, plus the module MessageFormatConfig registers
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new MessageFormatConfig().blackbirdModule());
+    }
+
+    private static List<InvoiceResponse> invoices() {
+        List<InvoiceResponse> invoices = new ArrayList<>(INVOICES);
+        for (long id = 1; id <= INVOICES; id++) {
+            List<InvoiceItemResponse> items = new ArrayList<>(ITEMS_PER_INVOICE);
+            for (long line = 1; line <= ITEMS_PER_INVOICE; line++) {
+                items.add(new InvoiceItemResponse(id * 10 + line, "Steel rod " + line, "12 mm, bundle of 10",
+                        "7214", (int) line, new BigDecimal("450.00"), BigDecimal.ZERO, new BigDecimal("18.00"),
+                        new BigDecimal("450.00").multiply(BigDecimal.valueOf(line))));
+            }
+            invoices.add(new InvoiceResponse(id, "INV-2024-" + id, 7L, 100 + id % 50, "Customer " + id % 50,
+                    "Hardware supplies", LocalDate.of(2024, 1, 1).plusDays(id % 365),
+                    LocalDate.of(2024, 1, 31).plusDays(id % 365), "TAX_INVOICE", new BigDecimal("6750.00"),
+                    BigDecimal.ZERO, new BigDecimal("607.50"), new BigDecimal("607.50"), BigDecimal.ZERO,
+                    new BigDecimal("1215.00"), new BigDecimal("7965.00"), BigDecimal.ZERO, new BigDecimal("7965.00"),
+                    "DUE", null, "Thank you for your business", new BigDecimal("7965.00"),
+                    LocalDateTime.of(2024, 1, 1, 10, 30).plusMinutes(id), items));
+        }
+        return invoices;
+    }
+}
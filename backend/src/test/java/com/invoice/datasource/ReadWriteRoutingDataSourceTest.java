@@ -0,0 +1,217 @@
+package com.invoice.datasource;
+
+import com.invoice.common.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wires the routing the way {@link DataSourceRoutingConfig} does, over two in-memory databases that each answer
+ * with their own name. Reads go through plain JDBC transactions and through JPA ones with the connection handling
+ * the configuration sets.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String WHERE_AM_I = "SELECT name FROM origin";
+    private static final String TOUCH = "UPDATE origin SET name = name";
+
+    private ReadYourWritesTracker readYourWritesTracker;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        readYourWritesTracker = new ReadYourWritesTracker(60_000);
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(readYourWritesTracker);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Target.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (entityManagerFactoryBean != null) {
+            entityManagerFactoryBean.destroy();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        Routes jdbc = jdbcRoutes();
+        assertThat(jdbc.read()).isEqualTo("replica");
+        assertThat(jdbc.readInWriteTransaction()).isEqualTo("primary");
+        String outsideTransaction = jdbcTemplate.queryForObject(WHERE_AM_I, String.class);
+        assertThat(outsideTransaction).isEqualTo("primary");
+    }
+
+    @Test
+    void userWhoJustWroteReadsFromThePrimary() {
+        Routes jdbc = jdbcRoutes();
+        signIn("alice@example.com");
+        assertThat(jdbc.read()).isEqualTo("replica");
+
+        jdbc.write();
+        assertThat(jdbc.read()).isEqualTo("primary");
+
+        signIn("bob@example.com");
+        assertThat(jdbc.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPinTheUser() {
+        Routes jdbc = jdbcRoutes();
+        signIn("alice@example.com");
+        jdbc.writeTransaction().executeWithoutResult(tx -> {
+            jdbcTemplate.update(TOUCH);
+            tx.setRollbackOnly();
+        });
+
+        assertThat(jdbc.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void jpaTransactionsRouteTheSameWay() {
+        Routes jpa = jpaRoutes();
+        signIn("alice@example.com");
+        assertThat(jpa.read()).isEqualTo("replica");
+        assertThat(jpa.readInWriteTransaction()).isEqualTo("primary");
+
+        // Connections are released after each transaction, so the write doesn't leave one on the replica
+        jpa.write();
+        assertThat(jpa.read()).isEqualTo("primary");
+
+        signIn("bob@example.com");
+        assertThat(jpa.read()).isEqualTo("replica");
+        assertThat(jpa.readInWriteTransaction()).isEqualTo("primary");
+    }
+
+    @Test
+    void stickyUsersDoNotShareReplicaFlights() {
+        Routes jdbc = jdbcRoutes();
+        SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(),
+                new StaticListableBeanFactory(Map.of("readYourWritesTracker", readYourWritesTracker))
+                        .getBeanProvider(ReadYourWritesTracker.class), 60_000);
+
+        signIn("bob@example.com");
+        String bobBefore = singleFlight.execute("invoices", 42L, jdbc::read);
+        assertThat(bobBefore).isEqualTo("replica");
+
+        signIn("alice@example.com");
+        jdbc.write();
+        String alice = singleFlight.execute("invoices", 42L, jdbc::read);
+        assertThat(alice).isEqualTo("primary");
+
+        signIn("bob@example.com");
+        String bobAfter = singleFlight.execute("invoices", 42L, jdbc::read);
+        assertThat(bobAfter).isEqualTo("replica");
+    }
+
+    // Where reads and writes land through one kind of transaction manager
+    private interface Routes {
+
+        TransactionTemplate writeTransaction();
+
+        String read();
+
+        String readInWriteTransaction();
+
+        void write();
+    }
+
+    private Routes jdbcRoutes() {
+        return routes(new DataSourceTransactionManager(dataSource), () -> jdbcTemplate.queryForObject(WHERE_AM_I,
+                String.class), () -> jdbcTemplate.update(TOUCH));
+    }
+
+    private Routes jpaRoutes() {
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setPackagesToScan(getClass().getPackageName());
+        Map<String, Object> properties = new HashMap<>();
+        new DataSourceRoutingConfig().releaseConnectionsAfterTransaction().customize(properties);
+        entityManagerFactoryBean.setJpaPropertyMap(properties);
+        entityManagerFactoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        return routes(new JpaTransactionManager(entityManagerFactory),
+                () -> (String) entityManager.createNativeQuery(WHERE_AM_I).getSingleResult(),
+                () -> entityManager.createNativeQuery(TOUCH).executeUpdate());
+    }
+
+    private static Routes routes(PlatformTransactionManager transactionManager, Supplier<String> query,
+            Runnable update) {
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return new Routes() {
+            @Override
+            public TransactionTemplate writeTransaction() {
+                return writeTransaction;
+            }
+
+            @Override
+            public String read() {
+                return readOnlyTransaction.execute(tx -> query.get());
+            }
+
+            @Override
+            public String readInWriteTransaction() {
+                return writeTransaction.execute(tx -> query.get());
+            }
+
+            @Override
+            public void write() {
+                writeTransaction.executeWithoutResult(tx -> update.run());
+            }
+        };
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS origin");
+        jdbcTemplate.execute("CREATE TABLE origin (name VARCHAR(20) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO origin (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,203 @@
+package com.invoice.datasource.service;
+
+import com.invoice.business.dto.BusinessRequest;
+import com.invoice.business.service.BusinessService;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.datasource.ShardContext;
+import com.invoice.datasource.ShardDataSources;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.datasource.dto.ShardMoveResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Moves a business around three shards, each a database of its own in one MySQL server. The move relies on MySQL
+ * (information_schema, INSERT IGNORE, ON DUPLICATE KEY UPDATE, streaming result sets), so no embedded database
+ * stands in for it.
+ */
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.directory-cache-ms=0",
+        "app.sharding.move-drain-ms=0"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ShardMoveServiceTest {
+
+    private static final long USER_ID = 7001L;
+    private static final long BUSINESS_ID = 7001L;
+    private static final String OWNER_EMAIL = "owner@shard.test";
+    private static final List<Integer> SHARDS = List.of(0, 1, 2);
+
+    // Root, so the test can create the other shard databases and copy the schema into them
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("shard0")
+            .withUsername("root");
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        for (int shard : SHARDS.subList(1, SHARDS.size())) {
+            registry.add("app.sharding.shards." + shard + ".jdbc-url",
+                    () -> MYSQL.getJdbcUrl().replace("/shard0", "/shard" + shard));
+        }
+    }
+
+    @Autowired
+    private ShardMoveService shardMoveService;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private BusinessService businessService;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Hibernate only creates the schema on the home shard
+        JdbcTemplate home = shard(0);
+        List<String> tables = home.queryForList("SELECT table_name FROM information_schema.tables "
+                + "WHERE table_schema = 'shard0' AND table_type = 'BASE TABLE' AND table_name <> 'business_shards'",
+                String.class);
+        for (int shard : SHARDS.subList(1, SHARDS.size())) {
+            String database = "shard" + shard;
+            home.execute("CREATE DATABASE IF NOT EXISTS " + database);
+            for (String table : tables) {
+                home.execute("CREATE TABLE IF NOT EXISTS " + database + ".`" + table + "` LIKE shard0.`" + table + "`");
+            }
+        }
+
+        for (int shard : SHARDS) {
+            JdbcTemplate jdbcTemplate = shard(shard);
+            jdbcTemplate.update("DELETE FROM customers WHERE business_id = ?", BUSINESS_ID);
+            jdbcTemplate.update("DELETE FROM businesses WHERE id = ?", BUSINESS_ID);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        }
+        home.update("DELETE FROM business_shards WHERE business_id = ?", BUSINESS_ID);
+
+        home.update("INSERT INTO users (id, name, email, password_hash, role, created_at) "
+                + "VALUES (?, 'Owner', ?, 'x', 'BUSINESS_OWNER', NOW())", USER_ID, OWNER_EMAIL);
+        home.update("INSERT INTO businesses (id, user_id, business_name, address, state_code, phone, created_at) "
+                + "VALUES (?, ?, 'Original', 'Street 1', '27', '9999999999', NOW())", BUSINESS_ID, USER_ID);
+        for (int i = 1; i <= 3; i++) {
+            home.update("INSERT INTO customers (id, business_id, name) VALUES (?, ?, ?)",
+                    BUSINESS_ID * 10 + i, BUSINESS_ID, "Customer " + i);
+        }
+    }
+
+    @Test
+    void businessMovesAcrossShardsAndBackHome() {
+        ShardMoveResponse toFirst = shardMoveService.moveBusiness(BUSINESS_ID, 1);
+        assertThat(toFirst.getCopiedRows()).containsEntry("customers", 3).containsEntry("businesses", 1);
+        assertThat(shardMoveService.getPlacement(BUSINESS_ID).getShard()).isEqualTo(1);
+        assertThat(customers(1)).isEqualTo(3);
+        assertThat(customers(0)).isZero();
+        // A copy of the user and business rows stays on the home shard for the directory lookups
+        assertThat(businessName(0)).isEqualTo("Original");
+        assertThat(businessName(1)).isEqualTo("Original");
+
+        // Requests for the business run on its shard, so that is where the profile is edited; logins stay at home
+        signIn();
+        ShardContext.runOn(1, () -> businessService.updateBusiness(profile("Renamed")));
+        shard(0).update("UPDATE users SET name = 'Owner, renamed at home' WHERE id = ?", USER_ID);
+        shard(1).update("INSERT INTO customers (id, business_id, name) VALUES (?, ?, 'Customer 4')",
+                BUSINESS_ID * 10 + 4, BUSINESS_ID);
+
+        shardMoveService.moveBusiness(BUSINESS_ID, 2);
+        assertThat(shardMoveService.getPlacement(BUSINESS_ID).getShard()).isEqualTo(2);
+        assertThat(customers(2)).isEqualTo(4);
+        assertThat(customers(1)).isZero();
+        assertThat(businessName(1)).isNull();
+        assertThat(businessName(2)).isEqualTo("Renamed");
+
+        ShardContext.runOn(2, () -> businessService.updateBusiness(profile("Renamed again")));
+
+        shardMoveService.moveBusiness(BUSINESS_ID, 0);
+        assertThat(shardMoveService.getPlacement(BUSINESS_ID).getShard()).isZero();
+        assertThat(customers(0)).isEqualTo(4);
+        assertThat(customers(2)).isZero();
+        assertThat(businessName(2)).isNull();
+        // The profile edited while the business was away comes home; the live user row at home is kept
+        assertThat(businessName(0)).isEqualTo("Renamed again");
+        assertThat(shard(0).queryForObject("SELECT name FROM users WHERE id = ?", String.class, USER_ID))
+                .isEqualTo("Owner, renamed at home");
+    }
+
+    @Test
+    void backgroundJobsLeaveFrozenBusinessesAlone() {
+        assertThat(ShardContext.callOn(0, () -> shardDirectory.isServedHere(BUSINESS_ID))).isTrue();
+
+        assertThat(shardDirectory.beginMove(BUSINESS_ID, 0)).isTrue();
+        assertThat(ShardContext.callOn(0, () -> shardDirectory.isServedHere(BUSINESS_ID))).isFalse();
+        assertThat(shardDirectory.frozenBusinessIds()).contains(BUSINESS_ID);
+
+        // Once placed elsewhere, the rows left on the old shard are no longer worked on there
+        shardDirectory.setPlacement(BUSINESS_ID, new ShardDirectory.Placement(1, false));
+        assertThat(ShardContext.callOn(0, () -> shardDirectory.isServedHere(BUSINESS_ID))).isFalse();
+        assertThat(ShardContext.callOn(1, () -> shardDirectory.isServedHere(BUSINESS_ID))).isTrue();
+        assertThat(shardDirectory.frozenBusinessIds()).doesNotContain(BUSINESS_ID);
+    }
+
+    @Test
+    void moveToTheCurrentShardIsRejected() {
+        assertThatThrownBy(() -> shardMoveService.moveBusiness(BUSINESS_ID, 0))
+                .isInstanceOf(ConflictException.class);
+        assertThat(customers(0)).isEqualTo(3);
+    }
+
+    private static void signIn() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(OWNER_EMAIL, null, List.of()));
+    }
+
+    private static BusinessRequest profile(String name) {
+        BusinessRequest request = new BusinessRequest();
+        request.setBusinessName(name);
+        request.setAddress("Street 1");
+        request.setStateCode("27");
+        request.setPhone("9999999999");
+        return request;
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardDataSources.get(shard));
+    }
+
+    private int customers(int shard) {
+        Integer count = shard(shard).queryForObject("SELECT COUNT(*) FROM customers WHERE business_id = ?",
+                Integer.class, BUSINESS_ID);
+        return count != null ? count : 0;
+    }
+
+    private String businessName(int shard) {
+        List<String> names = shard(shard).queryForList("SELECT business_name FROM businesses WHERE id = ?",
+                String.class, BUSINESS_ID);
+        return names.isEmpty() ? null : names.get(0);
+    }
+}
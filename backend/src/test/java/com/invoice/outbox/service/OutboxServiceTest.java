@@ -0,0 +1,66 @@
+package com.invoice.outbox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.common.exception.ConflictException;
+import com.invoice.outbox.entity.OutboxEvent;
+import com.invoice.outbox.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class OutboxServiceTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        // What the transaction manager does on completion, whether or not the test got as far as committing
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void eventsCommittedWithinTheLimitPass() {
+        OutboxService service = service(60_000);
+
+        service.record(OutboxEvent.AggregateType.INVOICE, 1L, 7L, OutboxEvent.EventType.INVOICE_CREATED, Map.of());
+        service.record(OutboxEvent.AggregateType.INVOICE, 1L, 7L, OutboxEvent.EventType.INVOICE_PAID, Map.of());
+
+        // One deadline per transaction, however many events it writes
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+    }
+
+    @Test
+    void transactionCommittingAnEventTooLateIsRolledBack() throws Exception {
+        OutboxService service = service(1);
+
+        service.recordAll(List.of(new OutboxService.NewEvent(OutboxEvent.AggregateType.INVOICE, 1L, 7L,
+                OutboxEvent.EventType.INVOICE_OVERDUE, Map.of())));
+        Thread.sleep(5);
+
+        assertThatThrownBy(() -> TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.beforeCommit(false)))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    private OutboxService service(long maxCommitDelayMs) {
+        return new OutboxService(repository, new ObjectMapper(), mock(JdbcTemplate.class), maxCommitDelayMs);
+    }
+}
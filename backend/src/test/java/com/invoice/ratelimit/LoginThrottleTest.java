@@ -0,0 +1,51 @@
+package com.invoice.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private static final String EMAIL = "owner@example.com";
+
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getLogin().setPerAddress(new RateLimitProperties.Limit(60, 1000));
+        properties.getLogin().setPerAccount(new RateLimitProperties.Limit(10, 3));
+        properties.getLogin().setAccountDelay(new RateLimitProperties.Limit(6, 5));
+        loginThrottle = new LoginThrottle(new RateLimiter(new SimpleMeterRegistry()), properties);
+    }
+
+    @Test
+    void failuresFromOneAddressRefuseThatAddressOnly() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure("10.0.0.1", EMAIL);
+        }
+
+        assertThatThrownBy(() -> loginThrottle.check("10.0.0.1", EMAIL))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThat(loginThrottle.check("10.0.0.2", EMAIL)).isZero();
+    }
+
+    @Test
+    void failuresFromManyAddressesDelayTheAccountButNeverRefuseIt() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(loginThrottle.check("10.0.1." + i, EMAIL)).isZero();
+            loginThrottle.recordFailure("10.0.1." + i, " Owner@Example.com");
+        }
+        // The burst is spent; more failures from yet other addresses keep the account delayed, by one interval at most
+        for (int i = 5; i < 50; i++) {
+            long delayNanos = loginThrottle.check("10.0.1." + i, EMAIL);
+            assertThat(delayNanos).isPositive().isLessThanOrEqualTo(10_000_000_000L);
+            loginThrottle.recordFailure("10.0.1." + i, EMAIL);
+        }
+
+        assertThat(loginThrottle.check("10.0.2.1", "other@example.com")).isZero();
+    }
+}
@@ -0,0 +1,142 @@
+package com.invoice.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.business.dto.BusinessPlan;
+import com.invoice.business.repository.BusinessRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * What the rate limiter adds to a request that it admits: the plan lookup from the node's cache, the business
+ * bucket and, for a named endpoint, its path match and second bucket. Measured against the same requests through an
+ * empty chain, on one thread and on several threads sharing one business's buckets. Run with
+ * {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class RateLimitFilterBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int REQUESTS = 1_000_000;
+    private static final int THREADS = 8;
+
+    private final FilterChain emptyChain = (request, response) -> {
+    };
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void overheadOfAnAdmittedRequest() throws Exception {
+        RateLimitFilter filter = filter();
+
+        double baseline = nanosPerRequest(() -> emptyChain.doFilter(request("GET", "/api/invoices"),
+                new MockHttpServletResponse()));
+        double business = nanosPerRequest(() -> filter.doFilter(request("GET", "/api/invoices"),
+                new MockHttpServletResponse(), emptyChain));
+        double endpoint = nanosPerRequest(() -> filter.doFilter(request("POST", "/api/invoices"),
+                new MockHttpServletResponse(), emptyChain));
+        double contended = contendedNanosPerRequest(filter);
+
+        System.out.printf("rate limit overhead: business bucket %.0f ns, with endpoint bucket %.0f ns, "
+                        + "%d threads on one business %.0f ns per request (%d cores)%n", business - baseline,
+                endpoint - baseline, THREADS, contended, Runtime.getRuntime().availableProcessors());
+        // A few microseconds at most; the point of the numbers is comparing runs
+        assertThat(endpoint - baseline).isLessThan(20_000.0);
+    }
+
+    private double nanosPerRequest(Request request) throws Exception {
+        signIn();
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.run();
+        }
+        return (double) (System.nanoTime() - started) / REQUESTS;
+    }
+
+    private double contendedNanosPerRequest(RateLimitFilter filter) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(executor.submit(() -> {
+                    signIn();
+                    start.await();
+                    for (int i = 0; i < REQUESTS / THREADS; i++) {
+                        filter.doFilter(request("POST", "/api/invoices"), new MockHttpServletResponse(), emptyChain);
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> thread : threads) {
+                thread.get(5, TimeUnit.MINUTES);
+            }
+            // Elapsed time over all requests: below the single-threaded figure as far as the cores allow, unless
+            // the shared buckets make the threads wait on each other
+            return (double) (System.nanoTime() - started) / REQUESTS;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Request {
+
+        void run() throws Exception;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+
+    private static void signIn() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("owner@example.com", null, List.of()));
+    }
+
+    // Limits high enough that nothing is refused, so every request takes the admitted path
+    private static RateLimitFilter filter() {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Endpoint invoiceCreate = new RateLimitProperties.Endpoint();
+        invoiceCreate.setMethod("POST");
+        invoiceCreate.setPath("/api/invoices");
+        properties.getEndpoints().put("invoice-create", invoiceCreate);
+        RateLimitProperties.Plan plan = new RateLimitProperties.Plan();
+        plan.setBusiness(new RateLimitProperties.Limit(600_000_000, 100_000_000));
+        plan.getEndpoints().put("invoice-create", new RateLimitProperties.Limit(600_000_000, 100_000_000));
+        properties.getPlans().put("FREE", plan);
+
+        BusinessRepository businessRepository = mock(BusinessRepository.class);
+        when(businessRepository.findPlanByUserEmail(anyString()))
+                .thenReturn(Optional.of(new BusinessPlan(7L, "FREE")));
+        return new RateLimitFilter(new RateLimiter(new SimpleMeterRegistry()), properties, businessRepository,
+                new ObjectMapper(), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,110 @@
+package com.invoice.search.service;
+
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.entity.InvoiceItem;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.workload.ReportingWorkload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Query latency over one business with a million invoice items: 100,000 invoices of ten items each, worded from a
+ * skewed vocabulary so common terms have long postings. Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class InvoiceSearchIndexBenchmarkTest {
+
+    private static final long BUSINESS_ID = 1L;
+    private static final int INVOICES = 100_000;
+    private static final int ITEMS_PER_INVOICE = 10;
+    private static final int VOCABULARY = 20_000;
+    private static final int WARMUP_QUERIES = 2_000;
+    private static final int QUERIES = 10_000;
+
+    @Test
+    void queryLatencyOverAMillionItems() throws Exception {
+        Random random = new Random(42);
+        List<Invoice> invoices = invoices(random);
+        InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+        when(invoiceRepository.findWithItemsByBusinessId(anyLong())).thenReturn(invoices);
+
+        try (ReportingWorkload reportingWorkload = new ReportingWorkload(mock(DataSource.class), 1, 1, 60,
+                new SimpleMeterRegistry())) {
+            InvoiceSearchIndex searchIndex = new InvoiceSearchIndex(invoiceRepository, mock(CustomerRepository.class),
+                    reportingWorkload, new SimpleMeterRegistry(), 60_000, 3_600_000, 10);
+
+            long buildStarted = System.nanoTime();
+            assertThat(searchIndex.rebuild(BUSINESS_ID)).isEqualTo(INVOICES);
+            long buildMs = (System.nanoTime() - buildStarted) / 1_000_000;
+
+            for (int i = 0; i < WARMUP_QUERIES; i++) {
+                searchIndex.search(BUSINESS_ID, query(random), 0, 20);
+            }
+            long[] latencies = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                String query = query(random);
+                long started = System.nanoTime();
+                searchIndex.search(BUSINESS_ID, query, 0, 20);
+                latencies[i] = System.nanoTime() - started;
+            }
+            Arrays.sort(latencies);
+
+            double p50 = latencies[QUERIES / 2] / 1e6;
+            double p99 = latencies[QUERIES * 99 / 100] / 1e6;
+            System.out.printf("search over %,d items: build %,d ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    INVOICES * ITEMS_PER_INVOICE, buildMs, p50, p99, latencies[QUERIES - 1] / 1e6);
+            // Generous enough for a loaded CI machine; the printed numbers are what to compare between runs
+            assertThat(p99).isLessThan(250.0);
+        }
+    }
+
+    private static List<Invoice> invoices(Random random) {
+        List<Invoice> invoices = new ArrayList<>(INVOICES);
+        for (long id = 1; id <= INVOICES; id++) {
+            Invoice invoice = new Invoice();
+            invoice.setId(id);
+            invoice.setBusinessId(BUSINESS_ID);
+            invoice.setInvoiceNumber("INV-" + id);
+            invoice.setInvoiceTitle(word(random) + " " + word(random));
+            invoice.setInvoiceDate(LocalDate.of(2024, 1, 1));
+            invoice.setTotalAmount(BigDecimal.TEN);
+            for (int i = 0; i < ITEMS_PER_INVOICE; i++) {
+                InvoiceItem item = new InvoiceItem();
+                item.setItemName(word(random) + " " + word(random));
+                item.setItemDescription(word(random) + " " + word(random) + " " + word(random));
+                invoice.getItems().add(item);
+            }
+            invoices.add(invoice);
+        }
+        return invoices;
+    }
+
+    private static String query(Random random) {
+        StringBuilder query = new StringBuilder(word(random));
+        for (int i = random.nextInt(3); i > 0; i--) {
+            query.append(' ').append(word(random));
+        }
+        return query.toString();
+    }
+
+    // Cubing a uniform draw favours low ranks, so a few words are everywhere and most are rare
+    private static String word(Random random) {
+        int rank = (int) (Math.pow(random.nextDouble(), 3) * VOCABULARY);
+        return "w" + Integer.toString(rank, 36);
+    }
+}
@@ -0,0 +1,133 @@
+package com.invoice.search.service;
+
+import com.invoice.customer.repository.CustomerRepository;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.entity.InvoiceItem;
+import com.invoice.invoice.repository.InvoiceRepository;
+import com.invoice.search.dto.InvoiceSearchHit;
+import com.invoice.workload.ReportingWorkload;
+import com.invoice.workload.WorkloadRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds indexes in a real bulkhead over a stubbed invoice table. A latch holds the build open where a test needs a
+ * slow one.
+ */
+class InvoiceSearchIndexTest {
+
+    private static final long BUSINESS_ID = 10L;
+
+    private final List<Invoice> invoices = new ArrayList<>();
+    private final AtomicInteger builds = new AtomicInteger();
+    private volatile CountDownLatch buildGate = new CountDownLatch(0);
+    private ReportingWorkload reportingWorkload;
+    private InvoiceSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+        when(invoiceRepository.findWithItemsByBusinessId(anyLong())).thenAnswer(invocation -> {
+            builds.incrementAndGet();
+            assertThat(buildGate.await(10, TimeUnit.SECONDS)).isTrue();
+            return List.copyOf(invoices);
+        });
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        reportingWorkload = new ReportingWorkload(mock(DataSource.class), 1, 1, 60, new SimpleMeterRegistry());
+        searchIndex = new InvoiceSearchIndex(invoiceRepository, customerRepository, reportingWorkload,
+                new SimpleMeterRegistry(), 1000, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buildGate.countDown();
+        reportingWorkload.close();
+    }
+
+    @Test
+    void firstSearchWaitsForTheBuildAndLaterOnesReuseIt() {
+        invoices.add(invoice(1L, "Copper rods"));
+
+        assertThat(ids(searchIndex.search(BUSINESS_ID, "rods", 0, 10).getResults())).containsExactly(1L);
+        assertThat(ids(searchIndex.search(BUSINESS_ID, "copper", 0, 10).getResults())).containsExactly(1L);
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    void slowBuildAnswers503AndKeepsRunning() throws Exception {
+        invoices.add(invoice(1L, "Copper rods"));
+        buildGate = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> searchIndex.search(BUSINESS_ID, "rods", 0, 10))
+                .isInstanceOf(WorkloadRejectedException.class);
+        // An invoice created while the build reads is replayed onto the index it installs
+        searchIndex.indexAfterCommit(invoice(2L, "Brass rods"), null);
+        buildGate.countDown();
+
+        awaitUntil(() -> searchIndex.search(BUSINESS_ID, "rods", 0, 10).getResults().size() == 2);
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    void indexesBeyondTheCapAreEvictedLeastRecentlySearchedFirst() throws Exception {
+        invoices.add(invoice(1L, "Copper rods"));
+        searchIndex.search(1L, "rods", 0, 10);
+        Thread.sleep(5);
+        searchIndex.search(2L, "rods", 0, 10);
+        Thread.sleep(5);
+        searchIndex.search(1L, "rods", 0, 10);
+        Thread.sleep(5);
+        searchIndex.search(3L, "rods", 0, 10);
+        assertThat(builds).hasValue(3);
+
+        // Business 2 was searched least recently, so it went when business 3 came in over the cap of two
+        searchIndex.search(1L, "rods", 0, 10);
+        searchIndex.search(3L, "rods", 0, 10);
+        assertThat(builds).hasValue(3);
+        searchIndex.search(2L, "rods", 0, 10);
+        assertThat(builds).hasValue(4);
+    }
+
+    private static Invoice invoice(Long id, String itemName) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setBusinessId(BUSINESS_ID);
+        invoice.setInvoiceNumber("INV-" + id);
+        invoice.setInvoiceDate(LocalDate.of(2024, 1, 1));
+        invoice.setTotalAmount(BigDecimal.TEN);
+        InvoiceItem item = new InvoiceItem();
+        item.setItemName(itemName);
+        invoice.getItems().add(item);
+        return invoice;
+    }
+
+    private static List<Long> ids(List<InvoiceSearchHit> hits) {
+        return hits.stream().map(InvoiceSearchHit::getInvoiceId).toList();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.invoice.template.service;
+
+import com.invoice.template.dto.TemplateRequest;
+import com.invoice.template.dto.TemplateResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races createTemplate and updateTemplate calls that all make their template the default. The one-default rule
+ * lives in a MySQL generated column and unique key, so this runs against a real MySQL.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class TemplateServiceDefaultSwitchTest {
+
+    private static final long BUSINESS_ID = 9001L;
+    private static final int ROUNDS = 20;
+    private static final int CREATORS = 2;
+    private static final int UPDATERS = 2;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private TemplateService templateService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearTemplates() {
+        jdbcTemplate.update("DELETE FROM invoice_templates WHERE business_id = ?", BUSINESS_ID);
+    }
+
+    @Test
+    void concurrentDefaultSwitchesLeaveExactlyOneDefault() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CREATORS + UPDATERS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                List<Long> toUpdate = new ArrayList<>();
+                for (int i = 0; i < UPDATERS; i++) {
+                    String name = "round " + round + " existing " + i;
+                    toUpdate.add(templateService.createTemplate(request(name, false)).getId());
+                }
+
+                CyclicBarrier barrier = new CyclicBarrier(CREATORS + UPDATERS);
+                List<Callable<TemplateResponse>> calls = new ArrayList<>();
+                for (int i = 0; i < CREATORS; i++) {
+                    String name = "round " + round + " new " + i;
+                    calls.add(() -> {
+                        barrier.await();
+                        return templateService.createTemplate(request(name, true));
+                    });
+                }
+                for (Long id : toUpdate) {
+                    calls.add(() -> {
+                        barrier.await();
+                        return templateService.updateTemplate(id, request("round default " + id, true));
+                    });
+                }
+
+                List<Long> switched = new ArrayList<>();
+                for (Future<TemplateResponse> result : executor.invokeAll(calls, 60, TimeUnit.SECONDS)) {
+                    switched.add(result.get().getId());
+                }
+
+                List<Long> defaults = jdbcTemplate.queryForList(
+                        "SELECT id FROM invoice_templates WHERE business_id = ? AND is_default", Long.class,
+                        BUSINESS_ID);
+                assertThat(defaults).hasSize(1);
+                assertThat(switched).contains(defaults.get(0));
+                assertThat(templateService.getDefaultTemplate(BUSINESS_ID).getId()).isEqualTo(defaults.get(0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TemplateRequest request(String name, boolean isDefault) {
+        TemplateRequest request = new TemplateRequest();
+        request.setBusinessId(BUSINESS_ID);
+        request.setName(name);
+        request.setIsDefault(isDefault);
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.invoice.template.service;
+
+import com.invoice.template.repository.PredefinedTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TemplateUsageCounterTest {
+
+    private static final int THREADS = 16;
+    private static final int INCREMENTS_PER_THREAD = 30_000;
+    private static final long[] TEMPLATE_IDS = {1L, 2L, 3L};
+
+    private PredefinedTemplateRepository repository;
+    private TransactionTemplate transactionTemplate;
+    private TemplateUsageCounter counter;
+
+    // What the relative UPDATEs have added to usage_count so far, by template id
+    private final Map<Long, Long> persisted = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PredefinedTemplateRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(repository.incrementUsageCount(any(), anyLong())).thenAnswer(invocation -> {
+            persisted.merge(invocation.getArgument(0), invocation.<Long>getArgument(1), Long::sum);
+            return 1;
+        });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        counter = new TemplateUsageCounter(repository, transactionTemplate);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLostWhileFlushing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean incrementing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> incrementers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                incrementers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        counter.increment(TEMPLATE_IDS[(thread + i) % TEMPLATE_IDS.length]);
+                    }
+                    return null;
+                }));
+            }
+            // Flushes keep draining the counters while they are being incremented
+            Future<?> flusher = executor.submit(() -> {
+                start.await();
+                while (incrementing.get()) {
+                    counter.flush();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> incrementer : incrementers) {
+                incrementer.get(30, TimeUnit.SECONDS);
+            }
+            incrementing.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        counter.flushOnShutdown();
+
+        long total = persisted.values().stream().mapToLong(Long::longValue).sum();
+        assertThat(total).isEqualTo((long) THREADS * INCREMENTS_PER_THREAD);
+        long perTemplate = (long) THREADS * INCREMENTS_PER_THREAD / TEMPLATE_IDS.length;
+        for (long templateId : TEMPLATE_IDS) {
+            assertThat(persisted.get(templateId)).isEqualTo(perTemplate);
+        }
+    }
+
+    @Test
+    void failedFlushKeepsCountsForTheNextOne() {
+        AtomicInteger flushes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (flushes.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        for (int i = 0; i < 5; i++) {
+            counter.increment(1L);
+        }
+        counter.flush();
+        assertThat(persisted).isEmpty();
+
+        counter.increment(1L);
+        counter.flush();
+        assertThat(persisted.get(1L)).isEqualTo(6L);
+    }
+}
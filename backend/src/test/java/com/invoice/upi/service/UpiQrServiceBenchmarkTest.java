@@ -0,0 +1,105 @@
+package com.invoice.upi.service;
+
+import com.invoice.auth.entity.User;
+import com.invoice.auth.repository.UserRepository;
+import com.invoice.business.entity.Business;
+import com.invoice.business.repository.BusinessRepository;
+import com.invoice.invoice.entity.Invoice;
+import com.invoice.invoice.repository.InvoiceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of a UPI QR code when it has to be encoded and rendered - a new invoice, or a payment changed the due amount -
+ * against serving the cached PNG. Run with {@code mvn test -Pbenchmarks}.
+ */
+@Tag("benchmark")
+class UpiQrServiceBenchmarkTest {
+
+    private static final String EMAIL = "owner@example.com";
+    private static final long INVOICE_ID = 42L;
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 2_000;
+
+    private final Invoice invoice = new Invoice();
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void encodeVersusCachedCode() {
+        UpiQrService service = service();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(EMAIL, null, List.of()));
+
+        // Every call sees a new due amount, so every call encodes
+        for (int i = 0; i < WARMUP; i++) {
+            encodeOnce(service, i);
+        }
+        long[] encoded = new long[ITERATIONS];
+        int pngBytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long started = System.nanoTime();
+            pngBytes = encodeOnce(service, WARMUP + i);
+            encoded[i] = System.nanoTime() - started;
+        }
+
+        long[] cached = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long started = System.nanoTime();
+            service.getInvoiceQrCode(INVOICE_ID);
+            cached[i] = System.nanoTime() - started;
+        }
+
+        Arrays.sort(encoded);
+        Arrays.sort(cached);
+        System.out.printf("upi qr (%d bytes): encode p50 %.3f ms, p99 %.3f ms; cached p50 %.3f ms, p99 %.3f ms%n",
+                pngBytes, encoded[ITERATIONS / 2] / 1e6, encoded[ITERATIONS * 99 / 100] / 1e6,
+                cached[ITERATIONS / 2] / 1e6, cached[ITERATIONS * 99 / 100] / 1e6);
+        assertThat(cached[ITERATIONS / 2]).isLessThan(encoded[ITERATIONS / 2]);
+        assertThat(encoded[ITERATIONS * 99 / 100] / 1e6).isLessThan(100.0);
+    }
+
+    private int encodeOnce(UpiQrService service, int iteration) {
+        invoice.setDueAmount(BigDecimal.valueOf(10_000 + iteration, 2));
+        return service.getInvoiceQrCode(INVOICE_ID).png().length;
+    }
+
+    private UpiQrService service() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        Business business = new Business();
+        business.setId(7L);
+        business.setUserId(1L);
+        business.setBusinessName("Sharma Hardware & Sons");
+        business.setUpiId("sharmahardware@okicici");
+        invoice.setId(INVOICE_ID);
+        invoice.setBusinessId(7L);
+        invoice.setInvoiceNumber("INV-2024-000123");
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        BusinessRepository businessRepository = mock(BusinessRepository.class);
+        when(businessRepository.findByUserId(1L)).thenReturn(Optional.of(business));
+        InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+        when(invoiceRepository.findById(INVOICE_ID)).thenReturn(Optional.of(invoice));
+        return new UpiQrService(invoiceRepository, businessRepository, userRepository, new SimpleMeterRegistry(),
+                8, 5000);
+    }
+}
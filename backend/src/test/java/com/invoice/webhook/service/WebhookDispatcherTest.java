@@ -0,0 +1,226 @@
+package com.invoice.webhook.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.datasource.ShardDataSources;
+import com.invoice.datasource.ShardDirectory;
+import com.invoice.webhook.dto.DueEndpoint;
+import com.invoice.webhook.entity.WebhookDelivery;
+import com.invoice.webhook.entity.WebhookEndpoint;
+import com.invoice.webhook.repository.WebhookDeadLetterRepository;
+import com.invoice.webhook.repository.WebhookDeliveryRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flushes deliveries to a stub receiver on a local port. The delivery table is an in-memory stand-in that applies
+ * the lease, reschedule and delete statements the way the database would.
+ */
+class WebhookDispatcherTest {
+
+    private static final long ENDPOINT_ID = 1L;
+    private static final long BUSINESS_ID = 10L;
+    private static final int BATCH_SIZE = 50;
+
+    private HttpServer receiver;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    private final Map<Long, WebhookDelivery> rows = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private WebhookDeliveryRepository deliveryRepository;
+    private WebhookDispatcher dispatcher;
+    // Runs inside the lease statement, before it applies, to stand in for another node leasing at the same moment
+    private volatile Runnable concurrentLease = () -> {
+    };
+
+    @BeforeEach
+    void setUp() throws IOException {
+        receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        receiver.createContext("/hook", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        receiver.start();
+
+        WebhookEndpoint endpoint = new WebhookEndpoint();
+        endpoint.setId(ENDPOINT_ID);
+        endpoint.setBusinessId(BUSINESS_ID);
+        endpoint.setUrl("http://127.0.0.1:" + receiver.getAddress().getPort() + "/hook");
+        endpoint.setSecret("secret");
+        endpoint.setMaxConcurrency(2);
+        WebhookService webhookService = mock(WebhookService.class);
+        when(webhookService.findActiveEndpoint(BUSINESS_ID, ENDPOINT_ID)).thenReturn(Optional.of(endpoint));
+
+        deliveryRepository = fakeDeliveryTable();
+        ShardDirectory unsharded = new ShardDirectory(
+                new StaticListableBeanFactory().getBeanProvider(ShardDataSources.class), 0);
+        dispatcher = new WebhookDispatcher(webhookService, new WebhookTargetPolicy(true), deliveryRepository,
+                mock(WebhookDeadLetterRepository.class), objectMapper, new SimpleMeterRegistry(), unsharded,
+                BATCH_SIZE, 8, 1000, 600_000, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.stop(0);
+    }
+
+    @Test
+    void dueDeliveriesAreSentInBatchesAndAcknowledged() throws Exception {
+        addDeliveries(120);
+
+        long started = System.nanoTime();
+        while (!rows.isEmpty() && System.nanoTime() - started < TimeUnit.SECONDS.toNanos(10)) {
+            dispatcher.flush();
+            Thread.sleep(10);
+        }
+
+        assertThat(rows).isEmpty();
+        assertThat(received).hasSize(3);
+        assertThat(receivedEventIds()).hasSize(120).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void onlyRowsThisFlushLeasedAreSent() throws Exception {
+        addDeliveries(BATCH_SIZE);
+        // Another node wins the odd rows between this flush's select and its lease
+        concurrentLease = () -> {
+            concurrentLease = () -> {
+            };
+            rows.values().stream()
+                    .filter(row -> row.getId() % 2 == 1)
+                    .forEach(row -> {
+                        row.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+                        row.setLeaseOwner("other-node");
+                    });
+        };
+
+        dispatcher.flush();
+        awaitUntil(() -> rows.size() == BATCH_SIZE / 2);
+
+        assertThat(received).hasSize(1);
+        assertThat(receivedEventIds()).hasSize(BATCH_SIZE / 2).allMatch(id -> id % 2 == 0);
+        assertThat(rows.values()).allMatch(row -> "other-node".equals(row.getLeaseOwner()));
+    }
+
+    @Test
+    void failedBatchIsRescheduledWithBackoff() throws Exception {
+        status.set(503);
+        addDeliveries(10);
+
+        dispatcher.flush();
+        awaitUntil(() -> rows.values().stream().allMatch(row -> row.getAttempts() == 1));
+
+        assertThat(received).hasSize(1);
+        assertThat(rows).hasSize(10);
+        assertThat(rows.values()).allMatch(row -> row.getNextAttemptAt().isAfter(LocalDateTime.now())
+                && row.getLeaseOwner() == null);
+
+        // Backing off: nothing is due, so a second flush sends nothing
+        dispatcher.flush();
+        assertThat(received).hasSize(1);
+    }
+
+    private void addDeliveries(int count) {
+        for (long id = 1; id <= count; id++) {
+            rows.put(id, new WebhookDelivery(id, ENDPOINT_ID, BUSINESS_ID, 1000 + id, "INVOICE_CREATED",
+                    "{\"invoiceId\":" + id + "}", LocalDateTime.now(), 0, LocalDateTime.now().minusSeconds(1), null));
+        }
+    }
+
+    private List<Long> receivedEventIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (String body : received) {
+            for (JsonNode event : objectMapper.readTree(body).get("events")) {
+                ids.add(event.get("id").asLong() - 1000);
+            }
+        }
+        return ids;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private WebhookDeliveryRepository fakeDeliveryTable() {
+        WebhookDeliveryRepository repository = mock(WebhookDeliveryRepository.class);
+        when(repository.findDueEndpoints(any())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            return rows.values().stream().anyMatch(row -> !row.getNextAttemptAt().isAfter(now))
+                    ? List.of(new DueEndpoint(ENDPOINT_ID, BUSINESS_ID)) : List.of();
+        });
+        when(repository.findDueIds(anyLong(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(1);
+            return rows.values().stream()
+                    .filter(row -> !row.getNextAttemptAt().isAfter(now))
+                    .map(WebhookDelivery::getId)
+                    .sorted()
+                    .limit(BATCH_SIZE)
+                    .toList();
+        });
+        when(repository.lease(any(), any(), any(), anyString())).thenAnswer(invocation -> {
+            concurrentLease.run();
+            LocalDateTime now = invocation.getArgument(1);
+            int leased = 0;
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                WebhookDelivery row = rows.get(id);
+                if (row != null && !row.getNextAttemptAt().isAfter(now)) {
+                    row.setNextAttemptAt(invocation.getArgument(2));
+                    row.setLeaseOwner(invocation.getArgument(3));
+                    leased++;
+                }
+            }
+            return leased;
+        });
+        when(repository.findByLeaseOwnerOrderById(anyString())).thenAnswer(invocation -> rows.values().stream()
+                .filter(row -> invocation.getArgument(0).equals(row.getLeaseOwner()))
+                .sorted(Comparator.comparing(WebhookDelivery::getId))
+                .toList());
+        when(repository.reschedule(any(), any())).thenAnswer(invocation -> {
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                WebhookDelivery row = rows.get(id);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setNextAttemptAt(invocation.getArgument(1));
+                row.setLeaseOwner(null);
+            }
+            return invocation.<Collection<Long>>getArgument(0).size();
+        });
+        when(repository.deleteByIds(any())).thenAnswer(invocation -> {
+            invocation.<Collection<Long>>getArgument(0).forEach(rows::remove);
+            return invocation.<Collection<Long>>getArgument(0).size();
+        });
+        return repository;
+    }
+}
@@ -33,7 +33,7 @@ export default function DashboardPage() {
 
       // Try to load invoices
       try {
-        const invoiceData = await apiClient.getAllInvoices();
+        const invoiceData = await apiClient.getInvoiceSummaries();
         setInvoices(invoiceData || []);
       } catch (err) {
         console.log('No invoices yet');
@@ -60,7 +60,7 @@ export default function DashboardPage() {
 
   // Calculate analytics
   const totalInvoices = invoices.length;
-  const totalRevenue = invoices.reduce((sum, inv) => sum + (inv.total || 0), 0);
+  const totalRevenue = invoices.reduce((sum, inv) => sum + (inv.totalAmount || 0), 0);
   const recentInvoices = invoices.slice(0, 5);
 
   return (
@@ -215,7 +215,7 @@ export default function DashboardPage() {
                         </p>
                       </div>
                       <div className="text-right">
-                        <p className="font-bold text-gray-900">₹{invoice.total?.toLocaleString('en-IN')}</p>
+                        <p className="font-bold text-gray-900">₹{invoice.totalAmount?.toLocaleString('en-IN')}</p>
                         <p className="text-xs text-gray-600">{invoice.invoiceType}</p>
                       </div>
                     </div>
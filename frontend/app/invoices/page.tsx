@@ -24,7 +24,7 @@ export default function InvoicesPage() {
 
   const loadInvoices = async () => {
     try {
-      const data = await apiClient.getAllInvoices();
+      const data = await apiClient.getInvoiceSummaries();
       setInvoices(data);
     } catch (err: any) {
       setError(err.message || 'Failed to load invoices');
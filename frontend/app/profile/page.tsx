@@ -19,6 +19,7 @@ export default function ProfilePage() {
     stateCode: '',
     phone: '',
     gstNumber: '',
+    upiId: '',
   });
 
   useEffect(() => {
@@ -40,6 +41,7 @@ export default function ProfilePage() {
           stateCode: business.stateCode || '',
           phone: business.phone || '',
           gstNumber: business.gstNumber || '',
+          upiId: business.upiId || '',
         });
         setIsEdit(true);
       }
@@ -189,6 +191,21 @@ export default function ProfilePage() {
               />
             </div>
 
+            <div>
+              <label className="block text-sm font-medium text-gray-700">
+                UPI ID (Optional)
+              </label>
+              <input
+                type="text"
+                value={formData.upiId}
+                onChange={(e) =>
+                  setFormData({ ...formData, upiId: e.target.value })
+                }
+                placeholder="yourbusiness@okhdfcbank"
+                className="mt-1 block w-full px-3 py-2 border border-gray-300 rounded-md shadow-sm focus:outline-none focus:ring-blue-500 focus:border-blue-500"
+              />
+            </div>
+
             <div className="flex gap-4">
               <button
                 type="submit"
@@ -14,6 +14,7 @@ export default function Navbar() {
   useEffect(() => {
     const userData = authService.getUser();
     setUser(userData);
+    authService.resumeSession();
 
     // Close dropdown when clicking outside
     const handleClickOutside = (event: MouseEvent) => {
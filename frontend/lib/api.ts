@@ -163,6 +163,33 @@ export const apiClient = {
     return response.json();
   },
 
+  // Lightweight rows for list screens: no tax breakdown, notes or items
+  async getInvoiceSummaries() {
+    const response = await fetch(`${API_BASE_URL}/invoices/summary`, {
+      method: 'GET',
+      headers: getAuthHeaders(),
+    });
+
+    if (!response.ok) {
+      throw new Error('Failed to fetch invoices');
+    }
+
+    return response.json();
+  },
+
+  async getInvoiceItems(id: number) {
+    const response = await fetch(`${API_BASE_URL}/invoices/${id}/items`, {
+      method: 'GET',
+      headers: getAuthHeaders(),
+    });
+
+    if (!response.ok) {
+      throw new Error('Failed to fetch invoice items');
+    }
+
+    return response.json();
+  },
+
   async deleteInvoice(id: number) {
     const response = await fetch(`${API_BASE_URL}/invoices/${id}`, {
       method: 'DELETE',
@@ -319,6 +346,36 @@ export const apiClient = {
     return response.json();
   },
 
+  // Delta sync: omit the cursor to get a starting one, then pass back the returned cursor
+  async getChanges(cursor?: string) {
+    const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+    const response = await fetch(`${API_BASE_URL}/sync/changes${query}`, {
+      method: 'GET',
+      headers: getAuthHeaders(),
+    });
+    if (!response.ok) throw new Error('Failed to fetch changes');
+    return response.json();
+  },
+
+  // Live invoice and payment events; call close() on the returned handle when done. The server ends the stream
+  // with `expired` when its token runs out, so it is reopened with the current token
+  subscribeToLiveEvents(onEvent: (type: string, data: any) => void) {
+    let source: EventSource;
+    const open = () => {
+      const token = localStorage.getItem('token');
+      source = new EventSource(`${API_BASE_URL}/live/events?token=${encodeURIComponent(token || '')}`);
+      ['invoice.created', 'invoice.deleted', 'payment.added', 'payment.deleted', 'resync'].forEach((type) =>
+        source.addEventListener(type, (event) => onEvent(type, JSON.parse((event as MessageEvent).data)))
+      );
+      source.addEventListener('expired', () => {
+        source.close();
+        open();
+      });
+    };
+    open();
+    return { close: () => source.close() };
+  },
+
   async getSystemTemplateSettings(businessId: number) {
     const response = await fetch(`${API_BASE_URL}/templates/system/settings/${businessId}`, {
       method: 'GET',
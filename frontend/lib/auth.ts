@@ -1,5 +1,110 @@
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || 'http://localhost:8080/api';
 
+// Renew the access token this long before it expires
+const REFRESH_MARGIN_MS = 60 * 1000;
+
+// Without Web Locks, tabs wait up to this long before re-checking whether another tab already refreshed
+const REFRESH_JITTER_MS = 3000;
+
+let refreshTimer: ReturnType<typeof setTimeout> | null = null;
+let watchingOtherTabs = false;
+
+function storeSession(data: any) {
+  localStorage.setItem('token', data.token);
+  localStorage.setItem('refreshToken', data.refreshToken);
+  localStorage.setItem('user', JSON.stringify(data));
+  scheduleRefresh(data.token);
+}
+
+function clearSession() {
+  if (refreshTimer) {
+    clearTimeout(refreshTimer);
+    refreshTimer = null;
+  }
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('user');
+}
+
+function tokenExpiresAt(token: string): number | null {
+  try {
+    const payload = JSON.parse(atob(token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+    return typeof payload.exp === 'number' ? payload.exp * 1000 : null;
+  } catch {
+    return null;
+  }
+}
+
+function scheduleRefresh(token: string) {
+  if (refreshTimer) {
+    clearTimeout(refreshTimer);
+  }
+  const expiresAt = tokenExpiresAt(token);
+  if (expiresAt === null) {
+    return;
+  }
+  const delay = Math.max(0, expiresAt - Date.now() - REFRESH_MARGIN_MS);
+  refreshTimer = setTimeout(() => {
+    authService.refresh().catch(() => clearSession());
+  }, delay);
+}
+
+async function exchangeRefreshToken() {
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    throw new Error('Not logged in');
+  }
+
+  const response = await fetch(`${API_BASE_URL}/auth/refresh`, {
+    method: 'POST',
+    headers: {
+      'Content-Type': 'application/json',
+    },
+    body: JSON.stringify({ refreshToken }),
+  });
+
+  if (!response.ok) {
+    clearSession();
+    throw new Error('Session expired. Please log in again.');
+  }
+
+  const data = await response.json();
+  storeSession(data);
+  return data;
+}
+
+// Runs under a cross-tab lock and re-reads storage first: if another tab renewed the session meanwhile, its tokens
+// are used instead of sending the same refresh token twice
+function refreshUnlessRenewed() {
+  const token = localStorage.getItem('token');
+  const expiresAt = token ? tokenExpiresAt(token) : null;
+  if (token && expiresAt !== null && expiresAt - Date.now() > REFRESH_MARGIN_MS) {
+    scheduleRefresh(token);
+    const user = localStorage.getItem('user');
+    return Promise.resolve(user ? JSON.parse(user) : null);
+  }
+  return exchangeRefreshToken();
+}
+
+// Other tabs' refreshes and logouts show up as storage events; follow them instead of keeping an old timer
+function watchOtherTabs() {
+  if (watchingOtherTabs || typeof window === 'undefined') {
+    return;
+  }
+  watchingOtherTabs = true;
+  window.addEventListener('storage', (event) => {
+    if (event.key !== 'token') {
+      return;
+    }
+    if (event.newValue) {
+      scheduleRefresh(event.newValue);
+    } else if (refreshTimer) {
+      clearTimeout(refreshTimer);
+      refreshTimer = null;
+    }
+  });
+}
+
 export const authService = {
   async register(name: string, email: string, password: string) {
     const response = await fetch(`${API_BASE_URL}/auth/register`, {
@@ -16,8 +121,7 @@ export const authService = {
     }
 
     const data = await response.json();
-    localStorage.setItem('token', data.token);
-    localStorage.setItem('user', JSON.stringify(data));
+    storeSession(data);
     return data;
   },
 
@@ -36,14 +140,48 @@ export const authService = {
     }
 
     const data = await response.json();
-    localStorage.setItem('token', data.token);
-    localStorage.setItem('user', JSON.stringify(data));
+    storeSession(data);
     return data;
   },
 
+  // Exchanges the stored refresh token for a new pair; no password needed. A refresh token is single-use and the
+  // server treats a second exchange as theft, so open tabs take turns
+  async refresh() {
+    if (typeof navigator !== 'undefined' && 'locks' in navigator) {
+      return navigator.locks.request('auth-refresh', refreshUnlessRenewed);
+    }
+    await new Promise((resolve) => setTimeout(resolve, Math.random() * REFRESH_JITTER_MS));
+    return refreshUnlessRenewed();
+  },
+
+  // Call once on page load to keep a stored session renewed
+  resumeSession() {
+    watchOtherTabs();
+    const token = this.getToken();
+    if (!token) {
+      return;
+    }
+    const expiresAt = tokenExpiresAt(token);
+    if (expiresAt !== null && expiresAt - Date.now() <= REFRESH_MARGIN_MS) {
+      this.refresh().catch(() => clearSession());
+    } else {
+      scheduleRefresh(token);
+    }
+  },
+
   logout() {
-    localStorage.removeItem('token');
-    localStorage.removeItem('user');
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      // Revokes the session on the server; the local session is cleared either way
+      fetch(`${API_BASE_URL}/auth/logout`, {
+        method: 'POST',
+        headers: {
+          'Content-Type': 'application/json',
+        },
+        body: JSON.stringify({ refreshToken }),
+      }).catch(() => undefined);
+    }
+    clearSession();
   },
 
   getToken() {